@@ -0,0 +1,127 @@
+package net.catcart;
+
+import net.catcart.config.GameMode;
+import net.catcart.config.SubtierConfig;
+import net.catcart.tier.PlayerTiers;
+import net.catcart.tier.Tier;
+import net.catcart.tier.TierLookupService;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.client.network.PlayerListEntry;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Text;
+import net.minecraft.text.TextColor;
+import net.minecraft.util.Formatting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tier check for many players at once, e.g. a whole tournament bracket. UUIDs are resolved in
+ * bulk, rankings lookups fan out through {@link TierLookupService} (and so stay under the fetch
+ * concurrency cap), and each player's line is posted to chat as soon as their lookup finishes.
+ */
+final class BulkTierCheck {
+    private BulkTierCheck() {
+    }
+
+    static void checkNames(List<String> usernames) {
+        send(Text.literal("Checking " + usernames.size() + " players...").formatted(Formatting.GRAY));
+
+        UsernameResolver.resolveAll(usernames).thenAccept(resolved -> {
+            Map<String, UUID> players = new LinkedHashMap<>();
+            List<String> unknown = new ArrayList<>();
+            for (String username : usernames) {
+                UUID uuid = resolved.get(username.toLowerCase(Locale.ROOT));
+                if (uuid != null) {
+                    players.put(username, uuid);
+                } else {
+                    unknown.add(username);
+                }
+            }
+
+            if (!unknown.isEmpty()) {
+                send(Text.literal("Unknown players: " + String.join(", ", unknown)).formatted(Formatting.RED));
+            }
+            check(players);
+        });
+    }
+
+    static void checkTabList() {
+        ClientPlayNetworkHandler networkHandler = MinecraftClient.getInstance().getNetworkHandler();
+        if (networkHandler == null) {
+            return;
+        }
+
+        Map<String, UUID> players = new LinkedHashMap<>();
+        for (PlayerListEntry entry : networkHandler.getPlayerList()) {
+            UUID uuid = entry.getProfile().getId();
+            // Real accounts have version 4 UUIDs; servers pad their tab lists with fake entries that never have tiers.
+            if (uuid.version() == 4) {
+                players.put(entry.getProfile().getName(), uuid);
+            }
+        }
+
+        send(Text.literal("Checking " + players.size() + " players in the tab list...").formatted(Formatting.GRAY));
+        check(players);
+    }
+
+    private static void check(Map<String, UUID> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger remaining = new AtomicInteger(players.size());
+        AtomicInteger ranked = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        players.forEach((name, uuid) -> TierLookupService.lookupInteractive(uuid, name).whenComplete((tiers, error) -> {
+            if (error != null || tiers == null) {
+                failed.incrementAndGet();
+                send(Text.literal(name + ": lookup failed").formatted(Formatting.RED));
+            } else {
+                if (tiers.getBestMode() != null) {
+                    ranked.incrementAndGet();
+                }
+                send(formatLine(name, tiers));
+            }
+
+            if (remaining.decrementAndGet() == 0) {
+                int total = players.size();
+                send(Text.literal("Checked " + total + " players: " + ranked.get() + " ranked, "
+                        + (total - ranked.get() - failed.get()) + " unranked, " + failed.get() + " failed.").formatted(Formatting.GRAY));
+            }
+        }));
+    }
+
+    private static Text formatLine(String name, PlayerTiers tiers) {
+        MutableText line = Text.literal(name).formatted(Formatting.BOLD).append(Text.literal(":").formatted(Formatting.RESET));
+        if (tiers.getBestMode() == null) {
+            return line.append(Text.literal(" unranked").formatted(Formatting.GRAY));
+        }
+
+        for (GameMode gameMode : GameMode.values()) {
+            Tier tier = tiers.get(gameMode);
+            if (!tier.isNone()) {
+                int tierColor = SubtierConfig.getColor(tier.getLabel());
+                line.append(Text.literal(" ").append(gameMode.getIconText()).formatted(Formatting.RESET))
+                        .append(Text.literal(tier.getLabel()).styled(style -> style.withBold(false).withColor(TextColor.fromRgb(tierColor))));
+            }
+        }
+        return line;
+    }
+
+    private static void send(Text message) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        client.execute(() -> {
+            if (client.player != null) {
+                client.player.sendMessage(message, false);
+            }
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package net.catcart;
+
+import net.catcart.fetch.TierFetchExecutor;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.AbstractClientPlayerEntity;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Publishes fetch priorities for {@link TierFetchExecutor} from the client thread, so queued
+ * lookups for players whose nametags are on screen go out first, then everyone else in render
+ * distance by distance, then players who are only in the tab list.
+ */
+final class FetchPriorities {
+    private static final int UPDATE_INTERVAL_TICKS = 10;
+    // Player nametags stop rendering past 64 blocks.
+    private static final double NAMETAG_RANGE_SQ = 64 * 64;
+    // Roughly the horizontal half-angle of the default FOV, with some margin.
+    private static final double VIEW_COS = 0.4;
+    // Added to the distance of players out of view, to sort them after every player in view.
+    private static final double OUT_OF_VIEW = 1.0e7;
+
+    private static int ticks;
+
+    private FetchPriorities() {
+    }
+
+    static void tick(MinecraftClient client) {
+        if (++ticks < UPDATE_INTERVAL_TICKS) {
+            return;
+        }
+        ticks = 0;
+
+        if (client.world == null || client.player == null) {
+            TierFetchExecutor.setPriorities(Map.of());
+            return;
+        }
+        if (TierFetchExecutor.getQueueDepth() == 0) {
+            return;
+        }
+
+        Vec3d eyes = client.player.getEyePos();
+        Vec3d look = client.player.getRotationVec(1.0F);
+        Map<UUID, Double> priorities = new HashMap<>();
+
+        for (AbstractClientPlayerEntity other : client.world.getPlayers()) {
+            if (other == client.player) {
+                continue;
+            }
+
+            Vec3d offset = other.getEyePos().subtract(eyes);
+            double distanceSq = offset.lengthSquared();
+            boolean inView = distanceSq <= NAMETAG_RANGE_SQ && offset.dotProduct(look) >= VIEW_COS * Math.sqrt(distanceSq);
+            priorities.put(other.getUuid(), inView ? distanceSq : OUT_OF_VIEW + distanceSq);
+        }
+
+        TierFetchExecutor.setPriorities(priorities);
+    }
+}
@@ -9,11 +9,17 @@ import dev.isxander.yacl3.api.controller.EnumControllerBuilder;
 import dev.isxander.yacl3.api.controller.TickBoxControllerBuilder;
 import net.catcart.config.GameMode;
 import net.catcart.config.SubtierConfig;
+import net.catcart.fetch.FetchRejectedException;
+import net.catcart.fetch.TierFetchExecutor;
+import net.catcart.tier.PlayerTiers;
+import net.catcart.tier.Tier;
+import net.catcart.tier.TierLookupService;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
+import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
 import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 import net.minecraft.client.MinecraftClient;
@@ -31,14 +37,20 @@ import net.minecraft.util.Identifier;
 import org.jetbrains.annotations.NotNull;
 import org.lwjgl.glfw.GLFW;
 
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 
 public class SubtiersTaggerClient implements ClientModInitializer {
 	public static final String[] gamemodes = new String[]{"minecart", "bed", "mace", "og_vanilla", "speed", "dia_smp", "iron_pot", "creeper", "bow", "manhunt"};
 
+	private static final Pattern USERNAME = Pattern.compile("[A-Za-z0-9_]{1,16}");
+
 	private static KeyBinding myKeyBinding;
 
 	private static Boolean isenabled = SubtierConfig.getEnabled();
@@ -69,13 +81,41 @@ public class SubtiersTaggerClient implements ClientModInitializer {
 			dispatcher.register(
 					com.mojang.brigadier.builder.LiteralArgumentBuilder
 							.<FabricClientCommandSource>literal("stt")
+							.then(
+									com.mojang.brigadier.builder.LiteralArgumentBuilder
+											.<FabricClientCommandSource>literal("tab")
+											.executes(ctx -> {
+												BulkTierCheck.checkTabList();
+												return 0;
+											})
+							)
+							.then(
+									com.mojang.brigadier.builder.LiteralArgumentBuilder
+											.<FabricClientCommandSource>literal("stats")
+											.executes(ctx -> {
+												TierStatsDisplay.sendToChat();
+												return 0;
+											})
+											.then(
+													com.mojang.brigadier.builder.LiteralArgumentBuilder
+															.<FabricClientCommandSource>literal("hud")
+															.executes(ctx -> {
+																TierStatsDisplay.toggleHud();
+																return 0;
+															})
+											)
+							)
 							.then(
 									com.mojang.brigadier.builder.RequiredArgumentBuilder
-											.<FabricClientCommandSource, String>argument("username", StringArgumentType.word())
+											.<FabricClientCommandSource, String>argument("usernames", StringArgumentType.greedyString())
 											.executes(ctx -> {
-												String username = StringArgumentType.getString(ctx, "username");
+												List<String> usernames = parseUsernames(StringArgumentType.getString(ctx, "usernames"));
 
-												fetchAndDisplayTiers(username);
+												if (usernames.size() == 1) {
+													fetchAndDisplayTiers(usernames.get(0));
+												} else if (!usernames.isEmpty()) {
+													BulkTierCheck.checkNames(usernames);
+												}
 
 												return 0;
 											})
@@ -105,6 +145,11 @@ public class SubtiersTaggerClient implements ClientModInitializer {
 				"SubTierTagger"
 		));
 
+		TextWidthMemo.register();
+		ClientTickEvents.END_CLIENT_TICK.register(FetchPriorities::tick);
+		ClientTickEvents.END_CLIENT_TICK.register(TierStatsDisplay::tick);
+		HudRenderCallback.EVENT.register(TierStatsDisplay::renderHud);
+
 		ClientTickEvents.END_CLIENT_TICK.register(client -> {
 			if (myKeyBinding.wasPressed()) {
 				if (client.player != null) {
@@ -142,102 +187,68 @@ public class SubtiersTaggerClient implements ClientModInitializer {
 	}
 
 	private void fetchAndDisplayTiers(String username) {
-		new Thread(() -> {
-			try {
-				String uuid = getUuidFromUsername(username).get();
-				String formattedUuid = uuid.toString().replace("-", "");
-				URL url = new URL("https://subtiers.net/api/rankings/" + formattedUuid);
-				HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-				connection.setRequestMethod("GET");
-				connection.setConnectTimeout(5000);
-				connection.setReadTimeout(5000);
-
-				int responseCode = connection.getResponseCode();
-				if (responseCode == 200) {
-					JsonObject jsonResponse = JsonParser.parseReader(new InputStreamReader(connection.getInputStream())).getAsJsonObject();
-
-					MinecraftClient client = MinecraftClient.getInstance();
-					Text tiers = Text.literal("Tiers for " + username + ":").formatted(Formatting.BOLD);
-					MutableText resultMessage = Text.literal("");
-					resultMessage.append(tiers);
-
-					for (GameMode gameMode : GameMode.values()) {
-						String apiKey = gameMode.getApiKey();
-						if (jsonResponse.has(apiKey)) {
-							JsonObject gamemodeData = jsonResponse.getAsJsonObject(apiKey);
-							int tier = gamemodeData.get("tier").getAsInt();
-							int pos = gamemodeData.get("pos").getAsInt();
-
-							String positionText = (pos == 0) ? "HT" : "LT";
-
-							String retired;
+		UsernameResolver.resolve(username)
+				.thenCompose(uuid -> uuid.isEmpty()
+						? CompletableFuture.<PlayerTiers>completedFuture(null)
+						: TierLookupService.lookupInteractive(uuid.get(), username))
+				.whenComplete((playerTiers, error) -> {
+					Throwable cause = error == null ? null : TierFetchExecutor.unwrap(error);
+					if (cause instanceof FetchRejectedException e) {
+						sendErrorMessage("Subtiers is not accepting requests right now, try again in " + Math.max(1, e.getRetryAfterMillis() / 1000) + "s.");
+					} else if (cause != null) {
+						sendErrorMessage("An error occurred while fetching data for user: " + username);
+						SubtiersTagger.LOGGER.error("Failed to fetch tiers for {}", username, cause);
+					} else if (playerTiers == null) {
+						sendErrorMessage("Failed to fetch data for user: " + username);
+					} else if (playerTiers.getBestMode() == null) {
+						sendErrorMessage("No tiers found for user: " + username);
+					} else {
+						MinecraftClient client = MinecraftClient.getInstance();
+						Text resultMessage = buildTierMessage(username, playerTiers);
+						client.execute(() -> client.player.sendMessage(resultMessage, false));
+					}
+				});
+	}
 
-							if (gamemodeData.get("retired").getAsString() == "true"){
-								retired = "R";
-							} else {
-								retired = "";
-							}
+	/**
+	 * Splits {@code /stt a b,c} into distinct names, dropping anything that can't be a Minecraft username.
+	 */
+	private static List<String> parseUsernames(String input) {
+		Set<String> seen = new HashSet<>();
+		List<String> usernames = new ArrayList<>();
+		for (String name : input.split("[\\s,]+")) {
+			if (USERNAME.matcher(name).matches() && seen.add(name.toLowerCase(Locale.ROOT))) {
+				usernames.add(name);
+			}
+		}
+		return usernames;
+	}
 
-							String tierText = retired + positionText + tier;
+	private static Text buildTierMessage(String username, PlayerTiers playerTiers) {
+		Text tiers = Text.literal("Tiers for " + username + ":").formatted(Formatting.BOLD);
+		MutableText resultMessage = Text.literal("");
+		resultMessage.append(tiers);
 
-							int tiercolor = SubtierConfig.getColor(tierText);
-							Text formattedTier = Text.literal(tierText).styled(style -> style.withColor(TextColor.fromRgb(tiercolor))).formatted(Formatting.BOLD);
+		for (GameMode gameMode : GameMode.values()) {
+			Tier tier = playerTiers.get(gameMode);
+			if (!tier.isNone()) {
+				String tierText = tier.getLabel();
 
-							Text gamemode = Text.literal(gameMode.getTranslationKey()).formatted(Formatting.BOLD).styled(style -> style.withColor(gameMode.getIconColor()));
+				int tiercolor = SubtierConfig.getColor(tierText);
+				Text formattedTier = Text.literal(tierText).styled(style -> style.withColor(TextColor.fromRgb(tiercolor))).formatted(Formatting.BOLD);
 
-							MutableText gamemodeText = Text.literal(gameMode.getIcon() + " ").append(gamemode).append(" - ").append(formattedTier);
+				Text gamemode = Text.literal(gameMode.getTranslationKey()).formatted(Formatting.BOLD).styled(style -> style.withColor(gameMode.getIconColor()));
 
-							resultMessage.append(Text.literal("\n").append(gamemodeText));
-						}
-					}
+				MutableText gamemodeText = Text.empty().append(gameMode.getIconText()).append(" ").append(gamemode).append(" - ").append(formattedTier);
 
-					client.execute(() -> client.player.sendMessage(resultMessage, false));
-				} else {
-					sendErrorMessage("Failed to fetch data for user: " + username);
-				}
-			} catch (Exception e) {
-				sendErrorMessage("An error occurred while fetching data for user: " + username);
-				e.printStackTrace();
+				resultMessage.append(Text.literal("\n").append(gamemodeText));
 			}
-		}).start();
+		}
+		return resultMessage;
 	}
 
 	private void sendErrorMessage(String message) {
 		MinecraftClient client = MinecraftClient.getInstance();
 		client.execute(() -> client.player.sendMessage(Text.literal(message).formatted(Formatting.RED), false));
 	}
-
-	public Optional<String> getUuidFromUsername(String username) {
-		try {
-			URL url = new URL("https://api.mojang.com/users/profiles/minecraft/" + username);
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setRequestMethod("GET");
-			connection.setConnectTimeout(5000);
-			connection.setReadTimeout(5000);
-
-			int responseCode = connection.getResponseCode();
-			if (responseCode == 200) {
-				JsonObject jsonResponse = JsonParser.parseReader(new InputStreamReader(connection.getInputStream())).getAsJsonObject();
-				return Optional.of(jsonResponse.get("id").getAsString());
-			} else if (responseCode == 204) {
-				System.err.println("No UUID found for username: " + username);
-			} else {
-				System.err.println("Failed to fetch UUID for username: " + username + " (Response code: " + responseCode + ")");
-			}
-		} catch (Exception e) {
-			System.err.println("Error occurred while fetching UUID for username: " + username);
-			e.printStackTrace();
-		}
-
-		return Optional.empty();
-	}
-
-
-
-
-
-
-
 }
-
-
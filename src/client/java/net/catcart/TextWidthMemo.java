@@ -0,0 +1,45 @@
+package net.catcart;
+
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.ResourceReloadListenerKeys;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceType;
+import net.minecraft.util.Identifier;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Tracks the font generation that memoized text widths are checked against. Every resource
+ * reload that can change fonts moves it on, so widths measured with the old glyphs are dropped.
+ */
+public final class TextWidthMemo {
+    private static volatile int fontGeneration = 1;
+
+    private TextWidthMemo() {
+    }
+
+    public static int getFontGeneration() {
+        return fontGeneration;
+    }
+
+    static void register() {
+        ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new SimpleSynchronousResourceReloadListener() {
+            @Override
+            public Identifier getFabricId() {
+                return Identifier.of(SubtiersTagger.MOD_ID, "text_width_memo");
+            }
+
+            @Override
+            public Collection<Identifier> getFabricDependencies() {
+                return Set.of(ResourceReloadListenerKeys.FONTS);
+            }
+
+            @Override
+            public void reload(ResourceManager manager) {
+                fontGeneration++;
+            }
+        });
+    }
+}
@@ -0,0 +1,94 @@
+package net.catcart;
+
+import net.catcart.config.SubtierConfig;
+import net.catcart.metrics.TierMetrics;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.render.RenderTickCounter;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shows {@link TierMetrics} through {@code /stt stats}, the optional debug HUD, and a dump to
+ * the log and {@code config/subtiertagger-stats.json} every five minutes while stats logging is on.
+ */
+final class TierStatsDisplay {
+    private static final int DUMP_INTERVAL_TICKS = 5 * 60 * 20;
+    private static final long HUD_REFRESH_MS = 1000;
+    private static final int HUD_COLOR = 0xFFE0E0E0;
+
+    private static int ticks;
+    private static List<String> hudLines = List.of();
+    private static long hudUpdatedAt;
+
+    private TierStatsDisplay() {
+    }
+
+    static void sendToChat() {
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client.player == null) {
+            return;
+        }
+
+        client.player.sendMessage(Text.literal("SubTierTagger stats").formatted(Formatting.BOLD), false);
+        for (String line : TierMetrics.describe()) {
+            client.player.sendMessage(Text.literal(line).formatted(Formatting.GRAY), false);
+        }
+    }
+
+    static void toggleHud() {
+        SubtierConfig.setShowDebugHud(!SubtierConfig.getShowDebugHud());
+        SubtierConfig.save();
+    }
+
+    static void renderHud(DrawContext context, RenderTickCounter tickCounter) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (!SubtierConfig.getShowDebugHud() || client.options.hudHidden || client.getDebugHud().shouldShowDebugHud()) {
+            return;
+        }
+
+        // Percentiles walk every histogram bucket, so don't redo them each frame.
+        long now = System.currentTimeMillis();
+        if (now - hudUpdatedAt >= HUD_REFRESH_MS) {
+            hudLines = TierMetrics.describe();
+            hudUpdatedAt = now;
+        }
+
+        int y = 4;
+        for (String line : hudLines) {
+            context.drawTextWithShadow(client.textRenderer, line, 4, y, HUD_COLOR);
+            y += client.textRenderer.fontHeight + 1;
+        }
+    }
+
+    static void tick(MinecraftClient client) {
+        if (++ticks < DUMP_INTERVAL_TICKS) {
+            return;
+        }
+        ticks = 0;
+
+        if (!SubtierConfig.getLogStats()) {
+            return;
+        }
+
+        String json = TierMetrics.toJson().toString();
+        SubtiersTagger.LOGGER.info("Tier stats: {}", json);
+
+        Path file = FabricLoader.getInstance().getConfigDir().resolve("subtiertagger-stats.json");
+        CompletableFuture.runAsync(() -> {
+            try {
+                Files.writeString(file, json, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                SubtiersTagger.LOGGER.warn("Failed to write tier stats to {}", file, e);
+            }
+        });
+    }
+}
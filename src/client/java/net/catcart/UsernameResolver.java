@@ -0,0 +1,265 @@
+package net.catcart;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.mojang.util.UndashedUuid;
+import net.catcart.config.SubtierConfig;
+import net.catcart.fetch.RankingsApi;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.client.network.PlayerListEntry;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves usernames to UUIDs for the tier commands. The local tab list is checked first,
+ * then a bounded LRU cache that is persisted between sessions, and only then Mojang's
+ * profile API, which is heavily rate limited.
+ */
+public final class UsernameResolver {
+    private static final int BULK_BATCH_SIZE = 10;
+    private static final int MAX_ENTRIES = 512;
+    private static final long TTL_MS = TimeUnit.DAYS.toMillis(1);
+    private static final long MISSING_TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Gson GSON = new GsonBuilder().create();
+    private static final Path FILE = FabricLoader.getInstance().getConfigDir().resolve("subtiertagger-names.json");
+
+    private static final Map<String, CachedName> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedName> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private static final Map<String, CompletableFuture<Optional<UUID>>> inFlight = new ConcurrentHashMap<>();
+    private static final AtomicBoolean saveQueued = new AtomicBoolean(false);
+    private static boolean loaded = false;
+
+    /**
+     * @param uuid null if Mojang reported that no such player exists
+     */
+    private record CachedName(String name, UUID uuid, long resolvedAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() - resolvedAt > (uuid == null ? MISSING_TTL_MS : TTL_MS);
+        }
+    }
+
+    private UsernameResolver() {
+    }
+
+    public static CompletableFuture<Optional<UUID>> resolve(String username) {
+        Optional<UUID> local = fromTabList(username);
+        if (local.isPresent()) {
+            return CompletableFuture.completedFuture(local);
+        }
+
+        String key = username.toLowerCase(Locale.ROOT);
+        synchronized (cache) {
+            load();
+            CachedName cached = cache.get(key);
+            if (cached != null && !cached.isExpired()) {
+                return CompletableFuture.completedFuture(Optional.ofNullable(cached.uuid()));
+            }
+        }
+
+        CompletableFuture<Optional<UUID>> pending = new CompletableFuture<>();
+        CompletableFuture<Optional<UUID>> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            return existing;
+        }
+
+        fetch(username).thenAccept(uuid -> {
+            inFlight.remove(key, pending);
+            pending.complete(uuid);
+        });
+        return pending;
+    }
+
+    /**
+     * Resolves many names at once. Names that can't be answered locally are sent to Mojang's
+     * bulk endpoint in batches of ten instead of one request per name.
+     *
+     * @return the resolved UUIDs keyed by lowercase name; unknown names are absent
+     */
+    public static CompletableFuture<Map<String, UUID>> resolveAll(Collection<String> usernames) {
+        Map<String, UUID> resolved = new ConcurrentHashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        synchronized (cache) {
+            load();
+            for (String username : usernames) {
+                String key = username.toLowerCase(Locale.ROOT);
+                Optional<UUID> local = fromTabList(username);
+                CachedName cached = cache.get(key);
+                if (local.isPresent()) {
+                    resolved.put(key, local.get());
+                } else if (cached != null && !cached.isExpired()) {
+                    if (cached.uuid() != null) {
+                        resolved.put(key, cached.uuid());
+                    }
+                } else {
+                    missing.add(username);
+                }
+            }
+        }
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i += BULK_BATCH_SIZE) {
+            List<String> batch = missing.subList(i, Math.min(missing.size(), i + BULK_BATCH_SIZE));
+            batches.add(fetchBulk(batch).thenAccept(resolved::putAll));
+        }
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(v -> resolved);
+    }
+
+    private static CompletableFuture<Map<String, UUID>> fetchBulk(List<String> usernames) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(SubtierConfig.getBulkProfileUrl()))
+                .timeout(RankingsApi.REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(usernames)))
+                .build();
+
+        return SubtiersTagger.getClient().sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    Map<String, UUID> found = new HashMap<>();
+                    if (response.statusCode() != 200) {
+                        SubtiersTagger.LOGGER.warn("Failed to bulk fetch {} UUIDs (Response code: {})", usernames.size(), response.statusCode());
+                        return found;
+                    }
+
+                    for (JsonElement element : JsonParser.parseString(response.body()).getAsJsonArray()) {
+                        JsonObject profile = element.getAsJsonObject();
+                        String name = profile.get("name").getAsString();
+                        UUID uuid = UndashedUuid.fromStringLenient(profile.get("id").getAsString());
+                        found.put(name.toLowerCase(Locale.ROOT), uuid);
+                        remember(name, uuid);
+                    }
+                    for (String username : usernames) {
+                        if (!found.containsKey(username.toLowerCase(Locale.ROOT))) {
+                            remember(username, null);
+                        }
+                    }
+                    return found;
+                })
+                .exceptionally(e -> {
+                    SubtiersTagger.LOGGER.error("Error occurred while bulk fetching {} UUIDs", usernames.size(), e);
+                    return Map.of();
+                });
+    }
+
+    private static Optional<UUID> fromTabList(String username) {
+        ClientPlayNetworkHandler networkHandler = MinecraftClient.getInstance().getNetworkHandler();
+        if (networkHandler == null) {
+            return Optional.empty();
+        }
+
+        // Names are case-insensitive, but the handler's own lookup by name is exact.
+        for (PlayerListEntry entry : networkHandler.getPlayerList()) {
+            if (entry.getProfile().getName().equalsIgnoreCase(username)) {
+                return Optional.of(entry.getProfile().getId());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static CompletableFuture<Optional<UUID>> fetch(String username) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(SubtierConfig.getProfileUrl() + username))
+                .timeout(RankingsApi.REQUEST_TIMEOUT)
+                .GET()
+                .build();
+
+        return SubtiersTagger.getClient().sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    int responseCode = response.statusCode();
+                    if (responseCode == 200) {
+                        JsonObject jsonResponse = JsonParser.parseString(response.body()).getAsJsonObject();
+                        UUID uuid = UndashedUuid.fromStringLenient(jsonResponse.get("id").getAsString());
+                        remember(jsonResponse.get("name").getAsString(), uuid);
+                        return Optional.of(uuid);
+                    } else if (responseCode == 204 || responseCode == 404) {
+                        SubtiersTagger.LOGGER.warn("No UUID found for username: {}", username);
+                        remember(username, null);
+                    } else {
+                        SubtiersTagger.LOGGER.warn("Failed to fetch UUID for username: {} (Response code: {})", username, responseCode);
+                    }
+                    return Optional.<UUID>empty();
+                })
+                .exceptionally(e -> {
+                    SubtiersTagger.LOGGER.error("Error occurred while fetching UUID for username: {}", username, e);
+                    return Optional.empty();
+                });
+    }
+
+    private static void remember(String name, UUID uuid) {
+        synchronized (cache) {
+            cache.put(name.toLowerCase(Locale.ROOT), new CachedName(name, uuid, System.currentTimeMillis()));
+        }
+
+        // Coalesce the writes of a bulk lookup into one save.
+        if (saveQueued.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(UsernameResolver::save);
+        }
+    }
+
+    private static void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        if (!Files.exists(FILE)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(FILE)) {
+            List<CachedName> stored = GSON.fromJson(reader, new TypeToken<List<CachedName>>() {}.getType());
+            if (stored != null) {
+                for (CachedName entry : stored) {
+                    if (entry != null && entry.name() != null && !entry.isExpired()) {
+                        cache.put(entry.name().toLowerCase(Locale.ROOT), entry);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            SubtiersTagger.LOGGER.warn("Failed to read username cache {}", FILE, e);
+        }
+    }
+
+    private static synchronized void save() {
+        saveQueued.set(false);
+        List<CachedName> entries;
+        synchronized (cache) {
+            entries = new ArrayList<>(cache.values());
+        }
+
+        try (Writer writer = Files.newBufferedWriter(FILE)) {
+            GSON.toJson(entries, writer);
+        } catch (IOException e) {
+            SubtiersTagger.LOGGER.warn("Failed to write username cache {}", FILE, e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package net.catcart.mixin.client;
+
+import net.catcart.SubtiersTagger;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.network.packet.s2c.play.PlayerListS2CPacket;
+import net.minecraft.network.packet.s2c.play.PlayerRemoveS2CPacket;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.UUID;
+
+@Mixin(ClientPlayNetworkHandler.class)
+public class ClientPlayNetworkHandlerMixin {
+    // TAIL only runs on the client thread for both handlers, the netty thread bails out in forceMainThread.
+    @Inject(method = "onPlayerList", at = @At("TAIL"))
+    private void onPlayerList(PlayerListS2CPacket packet, CallbackInfo ci) {
+        for (PlayerListS2CPacket.Entry entry : packet.getPlayerAdditionEntries()) {
+            SubtiersTagger.onPlayerJoined(entry.profileId(), entry.profile().getName());
+        }
+    }
+
+    @Inject(method = "onPlayerRemove", at = @At("TAIL"))
+    private void onPlayerRemove(PlayerRemoveS2CPacket packet, CallbackInfo ci) {
+        for (UUID uuid : packet.profileIds()) {
+            SubtiersTagger.onPlayerLeft(uuid);
+        }
+    }
+}
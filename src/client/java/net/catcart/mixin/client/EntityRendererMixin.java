@@ -0,0 +1,33 @@
+package net.catcart.mixin.client;
+
+import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
+import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
+import com.llamalad7.mixinextras.sugar.Local;
+import net.catcart.TextWidthMemo;
+import net.catcart.duck.TierTagHolder;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.render.entity.EntityRenderer;
+import net.minecraft.entity.Entity;
+import net.minecraft.text.StringVisitable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+
+@Mixin(EntityRenderer.class)
+public class EntityRendererMixin {
+    // Only the nametag's own measurement, and only for the exact tagged name the player's entity holds.
+    @WrapOperation(method = "renderLabelIfPresent", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/font/TextRenderer;getWidth(Lnet/minecraft/text/StringVisitable;)I"))
+    private int memoizeLabelWidth(TextRenderer renderer, StringVisitable text, Operation<Integer> original, @Local(argsOnly = true) Entity entity) {
+        TierTagHolder.TaggedName taggedName = entity instanceof TierTagHolder holder ? holder.subtiertagger$getTaggedName() : null;
+        if (taggedName == null || taggedName.tagged() != text) {
+            return original.call(renderer, text);
+        }
+
+        int fontGeneration = TextWidthMemo.getFontGeneration();
+        int width = taggedName.getMemoWidth(fontGeneration);
+        if (width < 0) {
+            width = original.call(renderer, text);
+            taggedName.setMemoWidth(fontGeneration, width);
+        }
+        return width;
+    }
+}
@@ -28,6 +28,6 @@ public class YACLScreenMixin
         if (this.tabManager.getCurrentTab() instanceof YACLScreen.CategoryTab categoryTab)
             categoryTab.updateButtons();
 
-        SubtierConfig.HANDLER.save();
+        SubtierConfig.save();
     }
 }
@@ -0,0 +1,88 @@
+package net.catcart.benchmark;
+
+import net.catcart.cache.LruCache;
+import net.catcart.tier.PlayerTiers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One render thread reading the players on screen while fetch threads store results for
+ * everyone in the tab list, more players than the cache holds. The plain map group is the
+ * unbounded baseline the bounded cache replaced.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheContentionBenchmark {
+    private static final int CAPACITY = 1000;
+    private static final int PLAYERS = 2048;
+    private static final int ON_SCREEN = 64;
+
+    private final LruCache<UUID, PlayerTiers> cache = new LruCache<>(() -> CAPACITY);
+    private final ConcurrentHashMap<UUID, PlayerTiers> map = new ConcurrentHashMap<>();
+    private final UUID[] players = new UUID[PLAYERS];
+    private final PlayerTiers tiers = PlayerTiers.none(0);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < PLAYERS; i++) {
+            players[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        for (int i = 0; i < CAPACITY; i++) {
+            cache.put(players[i], tiers);
+            map.put(players[i], tiers);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    @Group("lruCache")
+    @GroupThreads(1)
+    public PlayerTiers lruRender(Cursor cursor) {
+        return cache.get(players[cursor.next++ & (ON_SCREEN - 1)]);
+    }
+
+    @Benchmark
+    @Group("lruCache")
+    @GroupThreads(3)
+    public void lruFetch(Cursor cursor) {
+        cache.put(players[cursor.next++ & (PLAYERS - 1)], tiers);
+    }
+
+    @Benchmark
+    @Group("plainMap")
+    @GroupThreads(1)
+    public PlayerTiers mapRender(Cursor cursor) {
+        return map.get(players[cursor.next++ & (ON_SCREEN - 1)]);
+    }
+
+    @Benchmark
+    @Group("plainMap")
+    @GroupThreads(3)
+    public void mapFetch(Cursor cursor) {
+        map.put(players[cursor.next++ & (PLAYERS - 1)], tiers);
+    }
+}
@@ -0,0 +1,88 @@
+package net.catcart.benchmark;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import net.catcart.config.GameMode;
+import net.catcart.fetch.RankingsDecoder;
+import net.catcart.tier.PlayerTiers;
+import net.catcart.tier.Tier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a rankings response with {@link RankingsDecoder} against the JSON tree parse it
+ * replaced. Payloads carry the extra per-mode fields the API sends alongside tier and pos.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RankingsParseBenchmark {
+    @Param({"1", "4", "12"})
+    public int rankedModes;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{\"name\":\"Player\",\"uuid\":\"069a79f444e94726a5befca90e38aaf5\",\"region\":\"EU\",\"points\":")
+                .append(random.nextInt(400));
+
+        GameMode[] modes = GameMode.values();
+        for (int i = 0; i < rankedModes; i++) {
+            json.append(",\"").append(modes[i].getApiKey()).append("\":{")
+                    .append("\"tier\":").append(1 + random.nextInt(5))
+                    .append(",\"pos\":").append(random.nextInt(2))
+                    .append(",\"peak_tier\":").append(1 + random.nextInt(5))
+                    .append(",\"peak_pos\":").append(random.nextInt(2))
+                    .append(",\"attained\":").append(1700000000L + random.nextInt(30000000))
+                    .append(",\"retired\":").append(random.nextInt(10) == 0)
+                    .append('}');
+        }
+        body = json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Reader reader() {
+        return new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public PlayerTiers streaming() throws IOException {
+        return RankingsDecoder.decode(reader(), 0);
+    }
+
+    @Benchmark
+    public PlayerTiers tree() {
+        JsonObject response = JsonParser.parseReader(reader()).getAsJsonObject();
+        byte[] tiers = new byte[GameMode.values().length];
+
+        for (GameMode mode : GameMode.values()) {
+            JsonObject data = response.getAsJsonObject(mode.getApiKey());
+            if (data != null && data.has("tier") && data.has("pos")) {
+                boolean retired = data.has("retired") && data.get("retired").getAsBoolean();
+                tiers[mode.ordinal()] = Tier.of(data.get("tier").getAsInt(), data.get("pos").getAsInt(), retired).getCode();
+            }
+        }
+        return PlayerTiers.of(tiers, 0);
+    }
+}
@@ -0,0 +1,94 @@
+package net.catcart.benchmark;
+
+import net.catcart.SubtiersTagger;
+import net.catcart.config.GameMode;
+import net.catcart.config.SubtierConfig;
+import net.catcart.duck.TierTagHolder;
+import net.catcart.tier.PlayerTiers;
+import net.catcart.tier.Tier;
+import net.catcart.tier.TierLookupService;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-frame cost of tagging one nametag, i.e. what {@code ExampleMixin.prependTier} adds to
+ * {@code getDisplayName}. The player's tiers are already cached, as they are for almost every
+ * frame in game; only the tagged name held by the player is reused or rebuilt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagBenchmark {
+    private UUID uuid;
+    private Holder holder;
+    private Text name;
+    private Text teamColoredName;
+    private boolean flip;
+    private String tierLabel;
+
+    @Setup
+    public void setUp() {
+        uuid = UUID.randomUUID();
+        holder = new Holder();
+        name = Text.literal("Player");
+        teamColoredName = Text.literal("Player").formatted(Formatting.RED);
+        tierLabel = Tier.HT3.getLabel();
+
+        byte[] codes = new byte[GameMode.values().length];
+        codes[GameMode.MINECART.ordinal()] = Tier.HT2.getCode();
+        codes[GameMode.SPEED.ordinal()] = Tier.LT3.getCode();
+        TierLookupService.put(uuid, PlayerTiers.of(codes, System.currentTimeMillis()));
+    }
+
+    @Benchmark
+    public Text appendTierCacheHit() {
+        return SubtiersTagger.appendTier(holder, uuid, "Player", name);
+    }
+
+    /**
+     * Alternates between two untagged names, so every call rebuilds the tagged name.
+     */
+    @Benchmark
+    public Text appendTierCacheMiss() {
+        flip = !flip;
+        return SubtiersTagger.appendTier(holder, uuid, "Player", flip ? name : teamColoredName);
+    }
+
+    @Benchmark
+    public int getColor() {
+        return SubtierConfig.getColor(tierLabel);
+    }
+
+    /**
+     * Stands in for the field the mixin adds to the player entity.
+     */
+    private static final class Holder implements TierTagHolder {
+        private TaggedName taggedName;
+
+        @Override
+        public TaggedName subtiertagger$getTaggedName() {
+            return taggedName;
+        }
+
+        @Override
+        public void subtiertagger$setTaggedName(TaggedName taggedName) {
+            this.taggedName = taggedName;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package net.catcart.benchmark;
+
+import net.catcart.config.GameMode;
+import net.catcart.tier.PlayerTiers;
+import net.catcart.tier.Tier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tier comparison and best-mode selection, which now run once per fetch instead of per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TierBenchmark {
+    private static final int PAIRS = 1024;
+
+    @Param({"0", "1", "4", "12"})
+    public int rankedModes;
+
+    private byte[] codes;
+    private Tier[] left;
+    private Tier[] right;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Tier[] tiers = Tier.values();
+
+        codes = new byte[GameMode.values().length];
+        for (int i = 0; i < rankedModes; i++) {
+            codes[i] = tiers[1 + random.nextInt(tiers.length - 1)].getCode();
+        }
+
+        left = new Tier[PAIRS];
+        right = new Tier[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            left[i] = tiers[random.nextInt(tiers.length)];
+            right[i] = tiers[random.nextInt(tiers.length)];
+        }
+    }
+
+    @Benchmark
+    public GameMode bestMode() {
+        return PlayerTiers.of(codes, 0).getBestMode();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int compareTiers() {
+        int higher = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            if (left[i].isHigherThan(right[i])) {
+                higher++;
+            }
+        }
+        return higher;
+    }
+}
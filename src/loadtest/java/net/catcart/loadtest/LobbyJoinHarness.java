@@ -0,0 +1,149 @@
+package net.catcart.loadtest;
+
+import com.mojang.util.UndashedUuid;
+import net.catcart.config.SubtierConfig;
+import net.catcart.fetch.RosterSync;
+import net.catcart.fetch.TierFetchExecutor;
+import net.catcart.metrics.LatencyHistogram;
+import net.catcart.metrics.TierMetrics;
+import net.catcart.tier.TierLookupService;
+import net.catcart.tier.TierRoster;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates joining a lobby of N unknown players against {@link MockRankingsServer}: every
+ * player is looked up through {@link TierLookupService} at once, the way tab-list prefetching
+ * does, and the run reports throughput, lookup latency and thread and socket usage.
+ * <p>
+ * Options, all optional: {@code --players 200 --concurrency 4 --latency 80 --jitter 40
+ * --errors 0.02 --rate-limit 0.01 --retry-after 1 --not-found 0.05 --unprocessable 0.01
+ * --malformed 0.01}. Rates are per request. Throughput is bounded by the client's own rate
+ * limiter, as it is in game.
+ * <p>
+ * {@code --roster 100000} runs the same lobby in roster mode instead: the mock server serves a
+ * roster of that many players, the lobby is made of some of them, and the run also reports what
+ * the initial download and one round of changes cost.
+ */
+public final class LobbyJoinHarness {
+    private LobbyJoinHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int players = Integer.parseInt(options.getOrDefault("players", "200"));
+        int rosterPlayers = Integer.parseInt(options.getOrDefault("roster", "0"));
+        SubtierConfig.setMaxConcurrentFetches(Integer.parseInt(options.getOrDefault("concurrency", String.valueOf(TierFetchExecutor.DEFAULT_MAX_CONCURRENT_FETCHES))));
+        SubtierConfig.setMaxCachedPlayers(Math.max(players, TierLookupService.DEFAULT_MAX_CACHED_PLAYERS));
+
+        MockRankingsServer.Faults faults = new MockRankingsServer.Faults(
+                Long.parseLong(options.getOrDefault("latency", "80")),
+                Long.parseLong(options.getOrDefault("jitter", "40")),
+                Double.parseDouble(options.getOrDefault("errors", "0.02")),
+                Double.parseDouble(options.getOrDefault("rate-limit", "0.01")),
+                Integer.parseInt(options.getOrDefault("retry-after", "1")),
+                Double.parseDouble(options.getOrDefault("not-found", "0.05")),
+                Double.parseDouble(options.getOrDefault("unprocessable", "0.01")),
+                Double.parseDouble(options.getOrDefault("malformed", "0.01")));
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        try (MockRankingsServer server = new MockRankingsServer(0, faults)) {
+            SubtierConfig.setRankingsUrl(server.baseUrl() + MockRankingsServer.RANKINGS_PATH);
+            if (rosterPlayers > 0) {
+                syncRoster(server, rosterPlayers);
+            }
+            System.out.printf("Joining a lobby of %d players against %s with %s%n", players, server.baseUrl(), faults);
+
+            LatencyHistogram lookupLatency = new LatencyHistogram();
+            LongAdder succeeded = new LongAdder();
+            LongAdder failed = new LongAdder();
+            CompletableFuture<?>[] lookups = new CompletableFuture<?>[players];
+
+            long start = System.nanoTime();
+            for (int i = 0; i < players; i++) {
+                // In roster mode the lobby is made of roster players, the way an event lobby would be.
+                UUID uuid = rosterPlayers > 0 ? rosterPlayerUuid(i % rosterPlayers) : randomAccountUuid();
+                long submittedAt = System.nanoTime();
+                lookups[i] = TierLookupService.lookup(uuid, "Player" + i).handle((tiers, error) -> {
+                    lookupLatency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedAt));
+                    (error == null ? succeeded : failed).increment();
+                    return null;
+                });
+            }
+            CompletableFuture.allOf(lookups).get(10, TimeUnit.MINUTES);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%nFinished in %.2f s: %.1f lookups/s, %d resolved, %d failed%n",
+                    seconds, players / seconds, succeeded.sum(), failed.sum());
+            System.out.printf("Lookup latency (queue, retries and request): p50 %d ms, p90 %d ms, p99 %d ms, max %d ms%n",
+                    lookupLatency.getPercentile(50), lookupLatency.getPercentile(90),
+                    lookupLatency.getPercentile(99), lookupLatency.getMax());
+            TierMetrics.describe().forEach(System.out::println);
+            System.out.printf("Server: %d requests, %d client sockets, %d open at most%n",
+                    server.getRequestCount(), server.getClientSocketCount(), server.getPeakOpenRequests());
+            System.out.printf("Threads: %d before, %d peak (including the mock server's)%n",
+                    threadsBefore, threads.getPeakThreadCount());
+        }
+
+        // The retry and refresh timers are daemon threads; nothing else keeps the JVM alive.
+        System.exit(0);
+    }
+
+    private static void syncRoster(MockRankingsServer server, int rosterPlayers) throws Exception {
+        List<String> names = new ArrayList<>(rosterPlayers);
+        for (int i = 0; i < rosterPlayers; i++) {
+            names.add("Player" + i);
+        }
+        server.addRosterPlayers(names);
+        SubtierConfig.setRosterUrl(server.baseUrl() + MockRankingsServer.ROSTER_PATH);
+
+        long requestsBefore = server.getRequestCount();
+        long start = System.nanoTime();
+        TierRoster roster = RosterSync.syncNow().get(10, TimeUnit.MINUTES);
+        if (roster == null) {
+            throw new IllegalStateException("The roster could not be downloaded");
+        }
+        System.out.printf("Roster download: %d ranked of %d players in %.2f s over %d requests%n",
+                roster.size(), rosterPlayers, (System.nanoTime() - start) / 1e9, server.getRequestCount() - requestsBefore);
+
+        int changed = server.changeRosterPlayers(Math.max(1, rosterPlayers / 100), 42);
+        requestsBefore = server.getRequestCount();
+        start = System.nanoTime();
+        roster = RosterSync.syncNow().get(1, TimeUnit.MINUTES);
+        System.out.printf("Roster changes: %d players changed, now %d ranked at version %d, synced in %.2f s over %d requests%n",
+                changed, roster.size(), roster.getVersion(), (System.nanoTime() - start) / 1e9, server.getRequestCount() - requestsBefore);
+    }
+
+    private static UUID rosterPlayerUuid(int index) {
+        return UndashedUuid.fromStringLenient(MockRankingsServer.profileFor("Player" + index).get("id").getAsString());
+    }
+
+    private static UUID randomAccountUuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong() & ~0xF000L | 0x4000L, random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
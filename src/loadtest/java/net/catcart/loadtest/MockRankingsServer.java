@@ -0,0 +1,364 @@
+package net.catcart.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.catcart.config.GameMode;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A local stand-in for the rankings API and the Mojang profile endpoints, for load tests and
+ * manual testing without network access. Every player gets stable made-up tiers derived from
+ * their UUID. {@link Faults} inject latency and the failures the real services produce.
+ * <p>
+ * Delayed responses are finished from a timer instead of sleeping in a handler thread, so
+ * latency does not limit how many requests the server can hold open at once.
+ * <p>
+ * It also serves a roster for roster mode, in the format described on
+ * {@link net.catcart.fetch.RosterSync}. Players are added with {@link #addRosterPlayers} and
+ * changed with {@link #changeRosterPlayers}; every call is a new roster version.
+ * <p>
+ * Run {@link #main} to start one on a fixed port and point the config's endpoint URLs at it.
+ */
+public final class MockRankingsServer implements AutoCloseable {
+    public static final String RANKINGS_PATH = "/api/rankings/";
+    public static final String PROFILE_PATH = "/users/profiles/minecraft/";
+    public static final String BULK_PROFILE_PATH = "/minecraft/profile/lookup/bulk/byname";
+    public static final String ROSTER_PATH = "/api/roster";
+
+    private static final int ROSTER_PAGE_SIZE = 5000;
+
+    /**
+     * Rates are per request, between 0 and 1, and are tried in the order declared.
+     */
+    public record Faults(long latencyMs, long jitterMs, double errorRate, double rateLimitRate, int retryAfterSeconds,
+                         double notFoundRate, double unprocessableRate, double malformedRate) {
+        public static final Faults NONE = new Faults(0, 0, 0, 0, 1, 0, 0, 0);
+    }
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newFixedThreadPool(4, daemon("Mock-Handler"));
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(daemon("Mock-Latency"));
+    private volatile Faults faults;
+
+    private final LongAdder requests = new LongAdder();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger peakOpen = new AtomicInteger();
+    private final Set<InetSocketAddress> clientSockets = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param rankings null once the player was removed
+     * @param changedAt the roster version the player last changed at
+     */
+    private record RosterEntry(JsonObject rankings, long changedAt) {
+    }
+
+    // Players are only ever appended to the order, so an index into it is a stable page cursor.
+    private final Map<String, RosterEntry> roster = new HashMap<>();
+    private final List<String> rosterOrder = new ArrayList<>();
+    private long rosterVersion;
+
+    public MockRankingsServer(int port, Faults faults) throws IOException {
+        this.faults = faults;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(handlers);
+        server.createContext(RANKINGS_PATH, exchange -> handle(exchange, this::rankings));
+        server.createContext(PROFILE_PATH, exchange -> handle(exchange, this::profile));
+        server.createContext(BULK_PROFILE_PATH, exchange -> handle(exchange, this::bulkProfile));
+        server.createContext(ROSTER_PATH, exchange -> handle(exchange, this::roster));
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setFaults(Faults faults) {
+        this.faults = faults;
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return the most requests that were open at the same time
+     */
+    public int getPeakOpenRequests() {
+        return peakOpen.get();
+    }
+
+    /**
+     * @return how many distinct client connections have sent requests
+     */
+    public int getClientSocketCount() {
+        return clientSockets.size();
+    }
+
+    /**
+     * Adds the players, by name, to the roster with their usual made-up tiers.
+     */
+    public synchronized void addRosterPlayers(Collection<String> names) {
+        rosterVersion++;
+        for (String name : names) {
+            String id = profileFor(name).get("id").getAsString();
+            if (roster.put(id, new RosterEntry(rankingsFor(id), rosterVersion)) == null) {
+                rosterOrder.add(id);
+            }
+        }
+    }
+
+    /**
+     * Gives random roster players new tiers, and removes about one in five of those picked instead.
+     *
+     * @return how many players were changed or removed
+     */
+    public synchronized int changeRosterPlayers(int count, long seed) {
+        rosterVersion++;
+        Random random = new Random(seed);
+        Set<String> changed = new HashSet<>();
+        for (int i = 0; i < count && !rosterOrder.isEmpty(); i++) {
+            String id = rosterOrder.get(random.nextInt(rosterOrder.size()));
+            JsonObject rankings = null;
+            if (random.nextInt(5) != 0) {
+                rankings = rankingsFor(id + "#" + rosterVersion);
+                rankings.addProperty("uuid", id);
+            }
+            roster.put(id, new RosterEntry(rankings, rosterVersion));
+            changed.add(id);
+        }
+        return changed.size();
+    }
+
+    public synchronized long getRosterVersion() {
+        return rosterVersion;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    private interface Route {
+        void respond(HttpExchange exchange, Faults faults) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Route route) {
+        requests.increment();
+        clientSockets.add(exchange.getRemoteAddress());
+        peakOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+
+        Faults current = faults;
+        long delay = current.latencyMs() + (current.jitterMs() > 0 ? ThreadLocalRandom.current().nextLong(current.jitterMs()) : 0);
+        Runnable respond = () -> {
+            try {
+                route.respond(exchange, current);
+            } catch (IOException | RuntimeException e) {
+                // The client gave up, e.g. timed out; nothing left to answer.
+            } finally {
+                exchange.close();
+                open.decrementAndGet();
+            }
+        };
+
+        if (delay > 0) {
+            timer.schedule(respond, delay, TimeUnit.MILLISECONDS);
+        } else {
+            respond.run();
+        }
+    }
+
+    private void rankings(HttpExchange exchange, Faults faults) throws IOException {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if ((roll -= faults.errorRate()) < 0) {
+            send(exchange, 500, "{\"error\":\"Internal Server Error\"}");
+        } else if ((roll -= faults.rateLimitRate()) < 0) {
+            exchange.getResponseHeaders().add("Retry-After", String.valueOf(faults.retryAfterSeconds()));
+            send(exchange, 429, "{\"error\":\"Too Many Requests\"}");
+        } else if ((roll -= faults.notFoundRate()) < 0) {
+            send(exchange, 404, "{\"error\":\"Player not found\"}");
+        } else if ((roll -= faults.unprocessableRate()) < 0) {
+            send(exchange, 422, "{\"error\":\"Invalid UUID\"}");
+        } else if ((roll -= faults.malformedRate()) < 0) {
+            send(exchange, 200, "{\"minecart\":{\"tier\":1,\"pos\"");
+        } else {
+            String id = exchange.getRequestURI().getPath().substring(RANKINGS_PATH.length());
+            send(exchange, 200, rankingsFor(id).toString());
+        }
+    }
+
+    private void roster(HttpExchange exchange, Faults faults) throws IOException {
+        if (ThreadLocalRandom.current().nextDouble() < faults.errorRate()) {
+            send(exchange, 500, "{\"error\":\"Internal Server Error\"}");
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        long since = Long.parseLong(query.getOrDefault("since", "-1"));
+        int cursor = Integer.parseInt(query.getOrDefault("cursor", "0"));
+
+        JsonObject page = new JsonObject();
+        JsonArray players = new JsonArray();
+        JsonArray removed = new JsonArray();
+        synchronized (this) {
+            if (since > rosterVersion) {
+                send(exchange, 410, "{\"error\":\"Unknown roster version\"}");
+                return;
+            }
+
+            int index = cursor;
+            while (index < rosterOrder.size() && players.size() + removed.size() < ROSTER_PAGE_SIZE) {
+                String id = rosterOrder.get(index++);
+                RosterEntry entry = roster.get(id);
+                if (entry.changedAt() <= since) {
+                    continue;
+                }
+                if (entry.rankings() != null) {
+                    players.add(entry.rankings());
+                } else if (since >= 0) {
+                    removed.add(id);
+                }
+            }
+
+            page.addProperty("version", rosterVersion);
+            page.addProperty("next", index < rosterOrder.size() ? String.valueOf(index) : null);
+        }
+        page.add("players", players);
+        if (since >= 0) {
+            page.add("removed", removed);
+        }
+        send(exchange, 200, page.toString());
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int split = pair.indexOf('=');
+                if (split > 0) {
+                    params.put(pair.substring(0, split), URLDecoder.decode(pair.substring(split + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Between zero and four ranked modes, the same ones for every request about the player.
+     */
+    static JsonObject rankingsFor(String undashedUuid) {
+        Random random = new Random(undashedUuid.hashCode());
+        JsonObject json = new JsonObject();
+        json.addProperty("uuid", undashedUuid);
+        json.addProperty("region", random.nextBoolean() ? "EU" : "NA");
+        json.addProperty("points", random.nextInt(400));
+
+        GameMode[] modes = GameMode.values();
+        int ranked = random.nextInt(5);
+        for (int i = 0; i < ranked; i++) {
+            JsonObject mode = new JsonObject();
+            mode.addProperty("tier", 1 + random.nextInt(5));
+            mode.addProperty("pos", random.nextInt(2));
+            mode.addProperty("peak_tier", 1 + random.nextInt(5));
+            mode.addProperty("peak_pos", random.nextInt(2));
+            mode.addProperty("attained", 1700000000L + random.nextInt(30000000));
+            mode.addProperty("retired", random.nextInt(10) == 0);
+            json.add(modes[random.nextInt(modes.length)].getApiKey(), mode);
+        }
+        return json;
+    }
+
+    private void profile(HttpExchange exchange, Faults faults) throws IOException {
+        String name = exchange.getRequestURI().getPath().substring(PROFILE_PATH.length());
+        if (!name.matches("[A-Za-z0-9_]{1,16}")) {
+            send(exchange, 404, "{\"errorMessage\":\"Couldn't find any profile with name " + name + "\"}");
+            return;
+        }
+        send(exchange, 200, profileFor(name).toString());
+    }
+
+    private void bulkProfile(HttpExchange exchange, Faults faults) throws IOException {
+        JsonArray names = JsonParser.parseReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)).getAsJsonArray();
+        JsonArray profiles = new JsonArray();
+        names.forEach(name -> profiles.add(profileFor(name.getAsString())));
+        send(exchange, 200, profiles.toString());
+    }
+
+    /**
+     * A stable made-up profile. The UUID is marked version 4 like a real account's.
+     */
+    static JsonObject profileFor(String name) {
+        UUID base = UUID.nameUUIDFromBytes(name.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+        UUID uuid = new UUID(base.getMostSignificantBits() & ~0xF000L | 0x4000L, base.getLeastSignificantBits());
+
+        JsonObject json = new JsonObject();
+        json.addProperty("id", uuid.toString().replace("-", ""));
+        json.addProperty("name", name);
+        return json;
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int rosterPlayers = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        MockRankingsServer server = new MockRankingsServer(port, Faults.NONE);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < rosterPlayers; i++) {
+            names.add("Player" + i);
+        }
+        server.addRosterPlayers(names);
+
+        System.out.println("Mock rankings server on " + server.baseUrl());
+        System.out.println("  rankingsUrl:    " + server.baseUrl() + RANKINGS_PATH);
+        System.out.println("  profileUrl:     " + server.baseUrl() + PROFILE_PATH);
+        System.out.println("  bulkProfileUrl: " + server.baseUrl() + BULK_PROFILE_PATH);
+        System.out.println("  rosterUrl:      " + server.baseUrl() + ROSTER_PATH + " (" + rosterPlayers + " players named Player0 and up)");
+        Thread.currentThread().join();
+    }
+}
@@ -4,9 +4,19 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import lombok.Getter;
+import net.catcart.cache.TierDiskCache;
 import net.catcart.config.GameMode;
 import net.catcart.config.SubtierConfig;
+import net.catcart.duck.TierTagHolder;
+import net.catcart.fetch.RosterSync;
+import net.catcart.fetch.TierRetryScheduler;
+import net.catcart.metrics.TierMetrics;
+import net.catcart.tier.PlayerTiers;
+import net.catcart.tier.Tier;
+import net.catcart.tier.TierLookupService;
+import net.catcart.tier.TierSuffixes;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.loader.api.FabricLoader;
 
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
 import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
@@ -21,7 +31,6 @@ import net.minecraft.text.Text;
 import net.minecraft.text.TextColor;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
-import net.minecraft.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,10 +40,8 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static net.fabricmc.fabric.impl.resource.loader.ModResourcePackUtil.GSON;
@@ -44,13 +51,12 @@ public class SubtiersTagger implements ModInitializer {
 	public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
 	private static final String UPDATE_URL = "https://api.modrinth.com/v2/project/subtiertagger/version?game_versions=%s";
 
-	private static final ConcurrentHashMap<UUID, CopyOnWriteArrayList<Pair<GameMode, CachedTier>>> allPlayerTiers = new ConcurrentHashMap<>();
-	private static final ConcurrentHashMap<UUID, Text> displayNameCache = new ConcurrentHashMap<>();
-	private static final CopyOnWriteArraySet<UUID> ongoingFetches = new CopyOnWriteArraySet<>();
-	private static final String NO_TIER = "NoTier";
-
 	@Getter
-	private static final HttpClient client = HttpClient.newHttpClient();
+	private static final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_2)
+			.connectTimeout(Duration.ofSeconds(5))
+			.followRedirects(HttpClient.Redirect.NORMAL)
+			.build();
 
 	@Getter
 	private static Version latestVersion = null;
@@ -58,241 +64,102 @@ public class SubtiersTagger implements ModInitializer {
 
 	@Override
 	public void onInitialize() {
-		SubtierConfig.HANDLER.load();
+		SubtierConfig.load();
+		TierDiskCache.init(FabricLoader.getInstance().getConfigDir().resolve("subtiertagger-cache.bin"));
+		RosterSync.start();
 
 		LOGGER.info("SubTierTagger initialized, and subtier commands registered.");
 	}
 
 	public static Text appendTier(PlayerEntity player, Text text) {
-		UUID uuid = player.getUuid();
-		GameMode activeMode = SubtierConfig.getCurrentGameMode();
-		GameMode lastUsedMode = SubtierConfig.getLastUsedGameMode();
-
-		if (lastUsedMode != activeMode){
-			SubtierConfig.setLastUsedGameMode(activeMode);
-			displayNameCache.clear();
-		}
+		return appendTier((TierTagHolder) player, player.getUuid(), player.getGameProfile().getName(), text);
+	}
 
-		if (SubtierConfig.getEnabled() == false){
-			SubtierConfig.setLastUsedGameMode(activeMode);
-			clearAllCaches();
+	/**
+	 * @param holder where the tagged name is kept between calls, normally the player entity itself
+	 */
+	public static Text appendTier(TierTagHolder holder, UUID uuid, String playerName, Text text) {
+		SubtierConfig.Snapshot config = SubtierConfig.snapshot();
+		if (!config.enabled()) {
 			return text;
 		}
 
-		if (!allPlayerTiers.containsKey(uuid)) {
-			fetchTierAsync(player);
-			SubtierConfig.setLastUsedGameMode(activeMode);
-			return text; // Return original text while data is being fetched
-		}
+		// Both parts only ever grow, so their sum changes whenever either does.
+		long generation = config.generation() + TierLookupService.getVersion();
 
-		int index = activeMode.ordinal();
-		CopyOnWriteArrayList<Pair<GameMode, CachedTier>> tiers = allPlayerTiers.get(uuid);
-		if (tiers == null || tiers.size() <= index) {
-			LOGGER.warn("Tier data not initialized correctly for player: {}", player.getName().getString());
-			SubtierConfig.setLastUsedGameMode(activeMode);
-			return text;
+		TierTagHolder.TaggedName taggedName = holder.subtiertagger$getTaggedName();
+		if (taggedName != null && taggedName.isValid(generation, text)) {
+			TierMetrics.DISPLAY_CACHE_HITS.increment();
+			refreshIfExpired(uuid, playerName, taggedName.tiers());
+			return taggedName.tagged();
 		}
-
-		CachedTier cachedTier = tiers.get(index).getRight();
-		if (cachedTier == null || cachedTier.isExpired()) {
-			SubtierConfig.setLastUsedGameMode(activeMode);
-			return text; // Skip if no valid tier data
+		// Everything past here is a miss, including renders that end up untagged.
+		TierMetrics.DISPLAY_CACHE_MISSES.increment();
+
+		TierLookupService.track(uuid);
+		PlayerTiers tiers = TierLookupService.getCached(uuid);
+		if (tiers == null || tiers.isTooStale()) {
+			TierMetrics.markFirstRender(uuid);
+			TierLookupService.refresh(uuid, playerName);
+			return text; // Return original text while data is being fetched
 		}
 
-		if (cachedTier != null && !cachedTier.isExpired()) {
-			if (cachedTier == null || NO_TIER.equals(cachedTier.getTier())) {
-				CachedTier highestTier = null;
-				GameMode highestGameMode = null;
-				for (Pair<GameMode, CachedTier> tierPair : tiers) {
-					CachedTier currentTier = tierPair.getRight();
-					if (currentTier != null && !NO_TIER.equals(currentTier.getTier())) {
-						if (highestTier == null || compareTiers(currentTier.getTier(), highestTier.getTier()) > 0) {
-							highestTier = currentTier;
-							highestGameMode = tierPair.getLeft();
-						}
-					}
-				}
-
-				if (highestTier != null) {
-					MutableText mutableText = text.copy();
-					int tierColor = SubtierConfig.getColor(highestTier.getTier());
-					Text formattedTier = Text.literal(highestTier.getTier()).styled(style -> style.withColor(TextColor.fromRgb(tierColor)));
-
-					// Append the tier
-					mutableText.append(" | ").formatted(Formatting.GRAY);
-					mutableText.append(formattedTier);
-
-					String icon = highestGameMode.getIcon();
-					Text gamemodeText = Text.literal(icon);
-
-					mutableText.append(gamemodeText);
+		TierMetrics.markTiersShown(uuid);
+		refreshIfExpired(uuid, playerName, tiers);
 
-					SubtierConfig.setLastUsedGameMode(activeMode);
-					displayNameCache.put(uuid, mutableText);
-					return mutableText;
-				} else {
-					return text;
-				}
-			}
-
-			if (cachedTier.isExpired()) {
-				SubtierConfig.setLastUsedGameMode(activeMode);
-				return text;
-			}
-
-			if (displayNameCache.containsKey(uuid)) {
-				SubtierConfig.setLastUsedGameMode(activeMode);
-				return displayNameCache.get(uuid);
-			}
-
-			MutableText mutableText = text.copy();
-			int tierColor = SubtierConfig.getColor(cachedTier.getTier());
-			Text formattedTier = Text.literal(cachedTier.getTier()).styled(style -> style.withColor(TextColor.fromRgb(tierColor)));
-
-			mutableText.append(" | ").formatted(Formatting.GRAY);
-			mutableText.append(formattedTier);
-
-			String icon = activeMode.getIcon();
-			Text gamemodeText = Text.literal(icon);
-
-			mutableText.append(gamemodeText);
-
-			SubtierConfig.setLastUsedGameMode(activeMode);
-			displayNameCache.put(uuid, mutableText);
-			return mutableText;
+		// Players unranked in the active mode show their best tier from any other mode instead.
+		GameMode activeMode = config.currentGameMode();
+		GameMode displayMode = tiers.get(activeMode).isNone() ? tiers.getBestMode() : activeMode;
+		if (displayMode == null) {
+			// Unranked everywhere, like most of any lobby; remember that too, so the next render is one field read.
+			holder.subtiertagger$setTaggedName(new TierTagHolder.TaggedName(generation, tiers, text, text));
+			return text;
 		}
 
-		fetchTierAsync(player);
-		return text;
-	}
+		MutableText mutableText = text.copy()
+				.append(TierSuffixes.get(config, tiers.get(displayMode), displayMode))
+				.formatted(Formatting.GRAY);
 
-	private static int compareTiers(String tier1, String tier2) {
-		List<String> tierOrder = Arrays.asList("LT5", "HT5", "LT4", "HT4", "LT3", "HT3", "RLT2", "LT2", "RHT2", "RHT1", "LT1", "RTLT1", "RLT1", "HT1");
-		return Integer.compare(tierOrder.indexOf(tier1), tierOrder.indexOf(tier2));
+		holder.subtiertagger$setTaggedName(new TierTagHolder.TaggedName(generation, tiers, text, mutableText));
+		return mutableText;
 	}
 
+	/**
+	 * Keeps showing expired tiers while they are refreshed in the background. Normally the scheduled
+	 * refresh is already pending; this catches players whose refresh chain never started or ended.
+	 */
+	private static void refreshIfExpired(UUID uuid, String playerName, PlayerTiers tiers) {
+		if (tiers.isExpired() && !TierRetryScheduler.isPending(uuid)) {
+			TierLookupService.refresh(uuid, playerName);
+		}
+	}
 
 	public static void clearAllCaches() {
-		allPlayerTiers.clear();
-		displayNameCache.clear();
+		// Clearing the tiers also invalidates every tagged name still held by an entity.
+		TierLookupService.clear();
+		TierMetrics.clearWaiting();
 		LOGGER.info("Cleared all caches.");
 	}
 
 
-	public static void fetchTierAsync(PlayerEntity player) {
-		UUID uuid = player.getUuid();
-
-		if (!ongoingFetches.add(uuid)) {
+	/**
+	 * Called when a player joins the tab list, so their tiers are usually in by the time they come into view.
+	 */
+	public static void onPlayerJoined(UUID uuid, String playerName) {
+		// Real accounts have version 4 UUIDs; servers fill their tab lists with fake entries that never have tiers.
+		if (!SubtierConfig.getEnabled() || uuid.version() != 4) {
 			return;
 		}
-
-		new Thread(() -> {
-			int retryAttempts = 0;
-			boolean success = false;
-
-			while (retryAttempts < 3 && !success) {
-				try {
-					String formattedUuid = uuid.toString().replace("-", "");
-					URL url = new URL("https://subtiers.net/api/rankings/" + formattedUuid);
-					HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-					connection.setRequestMethod("GET");
-					connection.setConnectTimeout(5000);
-					connection.setReadTimeout(5000);
-
-					int responseCode = connection.getResponseCode();
-
-					if (responseCode == 404 || responseCode == 422) {
-						LOGGER.warn("No valid tier data found for player: {}", player.getName().getString());
-						for (GameMode gameMode : GameMode.values()) {
-							CopyOnWriteArrayList<Pair<GameMode, CachedTier>> tierList = allPlayerTiers.computeIfAbsent(uuid, k -> new CopyOnWriteArrayList<>());
-							tierList.add(new Pair<>(gameMode, new CachedTier(NO_TIER)));
-						}
-						success = true;
-					} else if (responseCode == 200) {
-						InputStreamReader reader = new InputStreamReader(connection.getInputStream());
-						JsonObject jsonResponse = JsonParser.parseReader(reader).getAsJsonObject();
-
-						for (GameMode gameMode : GameMode.values()) {
-							JsonObject gamemodeData = jsonResponse.getAsJsonObject(gameMode.getApiKey());
-							CopyOnWriteArrayList<Pair<GameMode, CachedTier>> tierList = allPlayerTiers.computeIfAbsent(uuid, k -> new CopyOnWriteArrayList<>());
-
-							if (gamemodeData != null && gamemodeData.has("tier") && gamemodeData.has("pos")) {
-								int tier = gamemodeData.get("tier").getAsInt();
-								int pos = gamemodeData.get("pos").getAsInt();
-								String position = (pos == 0) ? "HT" : "LT";
-								String retired = gamemodeData.has("retired") && gamemodeData.get("retired").getAsBoolean() ? "R" : "";
-								String formattedTier = retired + position + tier;
-
-								tierList.add(new Pair<>(gameMode, new CachedTier(formattedTier)));
-								LOGGER.info("Fetched tier for player {}: {}", player.getName().getString(), formattedTier);
-							} else {
-								tierList.add(new Pair<>(gameMode, new CachedTier(NO_TIER)));
-								LOGGER.warn("Incomplete or invalid tier data for player: {}", player.getName().getString());
-							}
-						}
-						success = true;
-					} else {
-						LOGGER.error("Unexpected response code {} while fetching tier for player: {}", responseCode, player.getName().getString());
-					}
-				} catch (SocketTimeoutException e) {
-					LOGGER.warn("Timeout while fetching tier for player: {}", player.getName().getString());
-				} catch (Exception e) {
-					LOGGER.error("Failed to fetch tier for player {}", player.getName().getString(), e);
-				}
-
-				if (!success) {
-					retryAttempts++;
-					try {
-						Thread.sleep(1000 * (long) Math.pow(2, retryAttempts));
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
-					}
-				}
-			}
-
-			if (!success) {
-				LOGGER.error("Failed to fetch tier for player {} after {} attempts.", player.getName().getString(), retryAttempts);
-				for (GameMode gameMode : GameMode.values()) {
-					CopyOnWriteArrayList<Pair<GameMode, CachedTier>> tierList = allPlayerTiers.computeIfAbsent(uuid, k -> new CopyOnWriteArrayList<>());
-					tierList.add(new Pair<>(gameMode, new CachedTier(NO_TIER)));
-				}
-			}
-
-			ongoingFetches.remove(uuid);
-		}).start();
-	}
-
-
-
-	public static class CachedTier {
-		private final String tier;
-		private final long timestamp;
-		private static final long EXPIRATION_TIME = 300000;
-		private static final String NO_TIER = "NoTier";
-
-		public CachedTier(String tier) {
-			this.tier = tier;
-			this.timestamp = System.currentTimeMillis();
-		}
-
-		public String getTier() {
-			return tier;
-		}
-
-		public boolean isExpired() {
-			return System.currentTimeMillis() - timestamp > EXPIRATION_TIME;
-		}
-
-		public boolean isNoTier() {
-			return NO_TIER.equals(tier);
-		}
-
-		public static CachedTier noTier() {
-			return new CachedTier(NO_TIER);
-		}
+		TierLookupService.track(uuid);
+		TierLookupService.lookup(uuid, playerName);
 	}
 
-	public static ConcurrentHashMap<UUID, Text> getDisplayNameCache() {
-		return displayNameCache;
+	/**
+	 * Called when a player leaves the tab list. Their tiers are dropped and any lookup not yet sent is cancelled.
+	 * Their tagged name goes with their entity.
+	 */
+	public static void onPlayerLeft(UUID uuid) {
+		TierMetrics.forget(uuid);
+		TierLookupService.evict(uuid);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package net.catcart.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * A concurrent map with a size cap. Lookups stay plain {@link ConcurrentHashMap} reads plus a
+ * stamp write, so they are safe on the render thread. Once the map grows an eighth past its
+ * capacity, whichever thread inserted last trims it back down by dropping the least recently
+ * used entries in one batch, which keeps eviction cost amortised over many inserts.
+ */
+public final class LruCache<K, V> {
+    private final ConcurrentHashMap<K, Node<V>> map = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final ReentrantLock trimLock = new ReentrantLock();
+    private final IntSupplier capacity;
+    private final Consumer<List<K>> onTrim;
+
+    /**
+     * @param capacity read on every insert, so a changed config setting applies right away
+     */
+    public LruCache(IntSupplier capacity) {
+        this(capacity, dropped -> {
+        });
+    }
+
+    /**
+     * @param onTrim given the keys of each batch of entries dropped to stay under the capacity
+     */
+    public LruCache(IntSupplier capacity, Consumer<List<K>> onTrim) {
+        this.capacity = capacity;
+        this.onTrim = onTrim;
+    }
+
+    public V get(K key) {
+        Node<V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        node.lastAccess = clock.incrementAndGet();
+        return node.value;
+    }
+
+    /**
+     * @return the value that was replaced, or null if there was none
+     */
+    public V put(K key, V value) {
+        Node<V> previous = map.put(key, new Node<>(value, clock.incrementAndGet()));
+        trimIfNeeded();
+        return previous == null ? null : previous.value;
+    }
+
+    /**
+     * @return the value already present, or null if {@code value} was added
+     */
+    public V putIfAbsent(K key, V value) {
+        Node<V> existing = map.putIfAbsent(key, new Node<>(value, clock.incrementAndGet()));
+        if (existing != null) {
+            return existing.value;
+        }
+        trimIfNeeded();
+        return null;
+    }
+
+    public boolean containsKey(K key) {
+        return map.containsKey(key);
+    }
+
+    public void remove(K key) {
+        map.remove(key);
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    private void trimIfNeeded() {
+        int max = Math.max(1, capacity.getAsInt());
+        if (map.size() <= max + max / 8 || !trimLock.tryLock()) {
+            return;
+        }
+
+        List<K> dropped = new ArrayList<>();
+        try {
+            // Copy the stamps first, they keep changing while we sort.
+            List<Stamped<K, V>> entries = new ArrayList<>(map.size());
+            for (Map.Entry<K, Node<V>> entry : map.entrySet()) {
+                entries.add(new Stamped<>(entry.getKey(), entry.getValue(), entry.getValue().lastAccess));
+            }
+            if (entries.size() <= max) {
+                return;
+            }
+
+            entries.sort(Comparator.comparingLong(Stamped::lastAccess));
+            for (Stamped<K, V> evicted : entries.subList(0, entries.size() - max)) {
+                if (map.remove(evicted.key(), evicted.node())) {
+                    dropped.add(evicted.key());
+                }
+            }
+        } finally {
+            trimLock.unlock();
+        }
+        if (!dropped.isEmpty()) {
+            onTrim.accept(dropped);
+        }
+    }
+
+    private static final class Node<V> {
+        private final V value;
+        private volatile long lastAccess;
+
+        private Node(V value, long lastAccess) {
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private record Stamped<K, V>(K key, Node<V> node, long lastAccess) {
+    }
+}
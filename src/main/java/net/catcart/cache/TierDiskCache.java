@@ -0,0 +1,179 @@
+package net.catcart.cache;
+
+import net.catcart.SubtiersTagger;
+import net.catcart.config.GameMode;
+import net.catcart.tier.PlayerTiers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tier results kept on disk between sessions and reconnects.
+ * <p>
+ * The file is an append-only log: a header followed by one fixed-size record per fetch
+ * (UUID, fetch time, one {@link net.catcart.tier.Tier} code per game mode), the newest record
+ * for a UUID wins. It is read once in the background at startup, then compacted (old and
+ * superseded records dropped) and reopened for appending. All file access happens on one
+ * daemon thread, so nothing here blocks the render or fetch threads.
+ */
+public final class TierDiskCache {
+    private static final int MAGIC = 0x53545443; // "STTC"
+    private static final int VERSION = 2;
+    private static final int MAX_ENTRIES = 10000;
+    private static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(7);
+
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SubTierTagger-Cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<UUID, PlayerTiers> entries = new ConcurrentHashMap<>();
+    private static volatile boolean loaded = false;
+    private static Path file;
+    private static DataOutputStream out;
+
+    private TierDiskCache() {
+    }
+
+    public static void init(Path path) {
+        IO.execute(() -> {
+            file = path;
+            load();
+            compact();
+            loaded = true;
+        });
+    }
+
+    /**
+     * @return the newest stored entry, or null if there is none or the file is still loading
+     */
+    public static PlayerTiers get(UUID uuid) {
+        return loaded ? entries.get(uuid) : null;
+    }
+
+    public static void put(UUID uuid, PlayerTiers entry) {
+        entries.put(uuid, entry);
+        IO.execute(() -> {
+            append(uuid, entry);
+            // Bounds memory within a session too; the file itself is only compacted at startup.
+            if (entries.size() > MAX_ENTRIES + MAX_ENTRIES / 8) {
+                trim();
+            }
+        });
+    }
+
+    private static void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        long oldest = System.currentTimeMillis() - MAX_AGE_MS;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readUnsignedByte() != GameMode.values().length) {
+                SubtiersTagger.LOGGER.info("Discarding tier cache written by another version.");
+                return;
+            }
+
+            while (true) {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                long fetchedAt = in.readLong();
+                byte[] tiers = new byte[GameMode.values().length];
+                in.readFully(tiers);
+
+                if (fetchedAt >= oldest) {
+                    entries.merge(uuid, PlayerTiers.of(tiers, fetchedAt), (a, b) -> b.getFetchedAt() >= a.getFetchedAt() ? b : a);
+                }
+            }
+        } catch (EOFException ignored) {
+            // End of the log, or a record cut short by a crash. Everything before it is kept.
+        } catch (IOException e) {
+            SubtiersTagger.LOGGER.warn("Failed to read tier cache {}", file, e);
+        }
+
+        SubtiersTagger.LOGGER.info("Loaded {} players from the tier cache.", entries.size());
+    }
+
+    /**
+     * Drops the oldest entries beyond {@link #MAX_ENTRIES}.
+     */
+    private static void trim() {
+        if (entries.size() > MAX_ENTRIES) {
+            List<Map.Entry<UUID, PlayerTiers>> newest = new ArrayList<>(entries.entrySet());
+            newest.sort(Comparator.comparingLong((Map.Entry<UUID, PlayerTiers> e) -> e.getValue().getFetchedAt()).reversed());
+            for (Map.Entry<UUID, PlayerTiers> evicted : newest.subList(MAX_ENTRIES, newest.size())) {
+                entries.remove(evicted.getKey(), evicted.getValue());
+            }
+        }
+    }
+
+    private static void compact() {
+        trim();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                writeHeader(compacted);
+                for (Map.Entry<UUID, PlayerTiers> entry : entries.entrySet()) {
+                    writeRecord(compacted, entry.getKey(), entry.getValue());
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            SubtiersTagger.LOGGER.warn("Failed to compact tier cache {}", file, e);
+        }
+    }
+
+    private static void append(UUID uuid, PlayerTiers entry) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            if (out == null) {
+                boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+                if (fresh) {
+                    writeHeader(out);
+                }
+            }
+            writeRecord(out, uuid, entry);
+            out.flush();
+        } catch (IOException e) {
+            // A half-written record is only safe at the end of the log, so stop appending for this session.
+            SubtiersTagger.LOGGER.warn("Failed to write tier cache {}, disabling it until restart.", file, e);
+            file = null;
+        }
+    }
+
+    private static void writeHeader(DataOutputStream stream) throws IOException {
+        stream.writeInt(MAGIC);
+        stream.writeInt(VERSION);
+        stream.writeByte(GameMode.values().length);
+    }
+
+    private static void writeRecord(DataOutputStream stream, UUID uuid, PlayerTiers entry) throws IOException {
+        stream.writeLong(uuid.getMostSignificantBits());
+        stream.writeLong(uuid.getLeastSignificantBits());
+        stream.writeLong(entry.getFetchedAt());
+        stream.write(entry.toCodes());
+    }
+}
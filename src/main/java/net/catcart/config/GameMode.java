@@ -4,6 +4,7 @@ import lombok.Getter;
 import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.text.TextColor;
+import net.minecraft.util.Identifier;
 import net.minecraft.util.TranslatableOption;
 
 import java.util.Arrays;
@@ -24,6 +25,11 @@ public enum GameMode implements TranslatableOption {
     ELYTRA(10, "Elytra", "elytra", "\uE840", TextColor.fromRgb(0x7475B4)),
     TRIDENT(11, "Trident", "trident", "\uE841", TextColor.fromRgb(0x42957E));
 
+    /**
+     * The font the icon glyphs live in, packed into one atlas at build time (see packIcons in build.gradle).
+     */
+    public static final Identifier ICON_FONT = Identifier.of("subtierstagger", "icons");
+
     private final int id;
     private final String translationKey;
     private final String apiKey;
@@ -58,14 +64,21 @@ public enum GameMode implements TranslatableOption {
         return iconColor;
     }
 
+    /**
+     * The icon in {@link #ICON_FONT}. Append it as a sibling; text appended to it would inherit the icon font.
+     */
+    public MutableText getIconText() {
+        return Text.literal(this.icon).styled(style -> style.withFont(ICON_FONT));
+    }
+
     public MutableText formatted() {
-        return Text.literal(this.icon + " " + this.translationKey).styled(s -> s.withColor(this.iconColor));
+        return Text.empty().append(getIconText()).append(" " + this.translationKey).styled(s -> s.withColor(this.iconColor));
     }
 
     public MutableText configFormatted() {
         Text gamemode = Text.literal(this.translationKey).styled(style -> style.withColor(this.iconColor));
 
-        return Text.literal(this.icon).append(gamemode);
+        return Text.empty().append(getIconText()).append(gamemode);
     }
 
     public GameMode next() {
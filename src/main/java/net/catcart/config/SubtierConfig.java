@@ -11,24 +11,39 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import net.catcart.fetch.RankingsApi;
+import net.catcart.fetch.RosterSync;
+import net.catcart.fetch.TierFetchExecutor;
+import net.catcart.tier.Tier;
+import net.catcart.tier.TierLookupService;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.util.Identifier;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class SubtierConfig implements Serializable {
+    public static final String DEFAULT_PROFILE_URL = "https://api.mojang.com/users/profiles/minecraft/";
+    public static final String DEFAULT_BULK_PROFILE_URL = "https://api.minecraftservices.com/minecraft/profile/lookup/bulk/byname";
 
-    public static ConfigClassHandler<SubtierConfig> HANDLER = ConfigClassHandler.createBuilder(SubtierConfig.class)
-            .id(Identifier.of("subtierstagger", "config"))
-            .serializer(config -> GsonConfigSerializerBuilder.create(config)
-                    .setPath(FabricLoader.getInstance().getConfigDir().resolve("subtiertagger.json5"))
-                    .setJson5(true)
-                    .build())
-            .build();
+    public static ConfigClassHandler<SubtierConfig> handler() {
+        return Handler.INSTANCE;
+    }
+
+    // Held separately so the settings themselves can be read without Fabric Loader, e.g. in benchmarks.
+    private static final class Handler {
+        private static final ConfigClassHandler<SubtierConfig> INSTANCE = ConfigClassHandler.createBuilder(SubtierConfig.class)
+                .id(Identifier.of("subtierstagger", "config"))
+                .serializer(config -> GsonConfigSerializerBuilder.create(config)
+                        .setPath(FabricLoader.getInstance().getConfigDir().resolve("subtiertagger.json5"))
+                        .setJson5(true)
+                        .build())
+                .build();
+    }
 
     @SerialEntry
     private static GameMode currentGameMode = GameMode.MINECART;
@@ -37,30 +52,194 @@ public class SubtierConfig implements Serializable {
     private static Boolean enabled = true;
 
     @SerialEntry
-    private static GameMode lastUsedGameMode = GameMode.MINECART;
+    private static Integer maxConcurrentFetches = TierFetchExecutor.DEFAULT_MAX_CONCURRENT_FETCHES;
+
+    @SerialEntry
+    private static Integer maxCachedPlayers = TierLookupService.DEFAULT_MAX_CACHED_PLAYERS;
+
+    @SerialEntry
+    private static Boolean showDebugHud = false;
+
+    @SerialEntry
+    private static Boolean logStats = false;
+
+    // Endpoints, so the mod can be pointed at a local mock server for testing.
+    @SerialEntry
+    private static String rankingsUrl = RankingsApi.RANKINGS_URL;
+
+    @SerialEntry
+    private static String profileUrl = DEFAULT_PROFILE_URL;
+
+    @SerialEntry
+    private static String bulkProfileUrl = DEFAULT_BULK_PROFILE_URL;
+
+    // Roster mode, off while blank. See RosterSync for what the endpoint has to serve.
+    @SerialEntry
+    private static String rosterUrl = "";
+
+    @SerialEntry
+    private static Integer rosterSyncSeconds = RosterSync.DEFAULT_SYNC_SECONDS;
 
-    public static GameMode getLastUsedGameMode() {
-        return lastUsedGameMode;
+    private static LinkedTreeMap<String, Integer> tierColors = defaultColorsTiers();
+
+    /**
+     * Everything the render path reads, published as one immutable value. Readers take one
+     * snapshot per call, so they never see half of a change, and nothing on that path writes.
+     * {@code generation} goes up with every new snapshot; anything built from an older one can
+     * compare it to tell it is stale.
+     */
+    public static final class Snapshot {
+        private final int generation;
+        private final boolean enabled;
+        private final GameMode currentGameMode;
+        // Indexed by Tier ordinal; never handed out, so nothing can change it after publishing.
+        private final int[] tierColors;
+
+        private Snapshot(int generation, boolean enabled, GameMode currentGameMode, int[] tierColors) {
+            this.generation = generation;
+            this.enabled = enabled;
+            this.currentGameMode = currentGameMode;
+            this.tierColors = tierColors;
+        }
+
+        public int generation() {
+            return generation;
+        }
+
+        public boolean enabled() {
+            return enabled;
+        }
+
+        public GameMode currentGameMode() {
+            return currentGameMode;
+        }
+
+        public int getColor(Tier tier) {
+            return tierColors[tier.ordinal()];
+        }
     }
 
-    public static void setLastUsedGameMode(GameMode gameMode) {
-        lastUsedGameMode = gameMode;
+    private static final AtomicReference<Snapshot> snapshot = new AtomicReference<>(buildSnapshot(0));
+
+    public static Snapshot snapshot() {
+        return snapshot.get();
     }
 
-    private static LinkedTreeMap<String, Integer> tierColors = defaultColorsTiers();
+    /**
+     * Publishes a new snapshot. Called by every setter that affects tagged names and after loading.
+     */
+    public static void markChanged() {
+        snapshot.updateAndGet(current -> buildSnapshot(current.generation() + 1));
+    }
+
+    private static Snapshot buildSnapshot(int generation) {
+        int[] colors = new int[Tier.values().length];
+        for (Tier tier : Tier.values()) {
+            colors[tier.ordinal()] = getColor(tier.getLabel());
+        }
+        return new Snapshot(generation, Boolean.TRUE.equals(enabled), currentGameMode == null ? GameMode.MINECART : currentGameMode, colors);
+    }
+
+    public static void load() {
+        handler().load();
+        markChanged();
+    }
+
+    public static void save() {
+        handler().save();
+        markChanged();
+    }
 
     public static GameMode getCurrentGameMode() {
-        return currentGameMode;
+        return snapshot.get().currentGameMode();
     }
 
-    public static Boolean getEnabled(){return enabled;}
+    public static Boolean getEnabled(){return snapshot.get().enabled();}
 
     public static void setEnabled(Boolean val){
         enabled = val;
+        markChanged();
     }
 
     public static void setCurrentGameMode(GameMode gameMode) {
         currentGameMode = gameMode;
+        markChanged();
+    }
+
+    public static int getMaxConcurrentFetches() {
+        return maxConcurrentFetches == null ? TierFetchExecutor.DEFAULT_MAX_CONCURRENT_FETCHES : maxConcurrentFetches;
+    }
+
+    public static void setMaxConcurrentFetches(Integer val) {
+        maxConcurrentFetches = val;
+    }
+
+    public static int getMaxCachedPlayers() {
+        return maxCachedPlayers == null ? TierLookupService.DEFAULT_MAX_CACHED_PLAYERS : maxCachedPlayers;
+    }
+
+    public static void setMaxCachedPlayers(Integer val) {
+        maxCachedPlayers = val;
+    }
+
+    public static boolean getShowDebugHud() {
+        return Boolean.TRUE.equals(showDebugHud);
+    }
+
+    public static void setShowDebugHud(Boolean val) {
+        showDebugHud = val;
+    }
+
+    public static boolean getLogStats() {
+        return Boolean.TRUE.equals(logStats);
+    }
+
+    public static void setLogStats(Boolean val) {
+        logStats = val;
+    }
+
+    public static String getRankingsUrl() {
+        return orDefault(rankingsUrl, RankingsApi.RANKINGS_URL);
+    }
+
+    public static void setRankingsUrl(String val) {
+        rankingsUrl = val;
+    }
+
+    public static String getProfileUrl() {
+        return orDefault(profileUrl, DEFAULT_PROFILE_URL);
+    }
+
+    public static void setProfileUrl(String val) {
+        profileUrl = val;
+    }
+
+    public static String getBulkProfileUrl() {
+        return orDefault(bulkProfileUrl, DEFAULT_BULK_PROFILE_URL);
+    }
+
+    public static void setBulkProfileUrl(String val) {
+        bulkProfileUrl = val;
+    }
+
+    public static String getRosterUrl() {
+        return rosterUrl == null ? "" : rosterUrl.trim();
+    }
+
+    public static void setRosterUrl(String val) {
+        rosterUrl = val;
+    }
+
+    public static int getRosterSyncSeconds() {
+        return rosterSyncSeconds == null ? RosterSync.DEFAULT_SYNC_SECONDS : Math.max(1, rosterSyncSeconds);
+    }
+
+    public static void setRosterSyncSeconds(Integer val) {
+        rosterSyncSeconds = val;
+    }
+
+    private static String orDefault(String url, String fallback) {
+        return url == null || url.isBlank() ? fallback : url;
     }
 
     public static int getColor(String tier) {
@@ -0,0 +1,76 @@
+package net.catcart.duck;
+
+import net.catcart.tier.PlayerTiers;
+import net.minecraft.text.Text;
+
+/**
+ * Mixed into {@code PlayerEntity}, so a player's tagged name lives on the entity itself: the
+ * render path reads one field instead of hashing the UUID into a cache, and the tag goes away
+ * with the entity.
+ */
+public interface TierTagHolder {
+    TaggedName subtiertagger$getTaggedName();
+
+    void subtiertagger$setTaggedName(TaggedName taggedName);
+
+    /**
+     * A tagged name, valid only while the tag generation and the untagged name it was built from
+     * are unchanged, and its tiers are not too stale to show.
+     * <p>
+     * It also memoizes the rendered width of {@link #tagged()}, so a nametag is measured once per
+     * font rather than on every frame. The memo is only read for that exact text instance and is
+     * checked against the font generation it was measured with.
+     */
+    final class TaggedName {
+        private final long generation;
+        private final PlayerTiers tiers;
+        private final Text original;
+        private final Text tagged;
+        // Font generation in the high half, width in the low half, 0 when unset. One field, so a reader never sees a mix of two memos.
+        private volatile long widthMemo;
+
+        /**
+         * @param generation the config generation plus {@link net.catcart.tier.TierLookupService#getVersion()}
+         */
+        public TaggedName(long generation, PlayerTiers tiers, Text original, Text tagged) {
+            this.generation = generation;
+            this.tiers = tiers;
+            this.original = original;
+            this.tagged = tagged;
+        }
+
+        public boolean isValid(long currentGeneration, Text currentOriginal) {
+            return generation == currentGeneration
+                    && !tiers.isTooStale()
+                    && original.equals(currentOriginal);
+        }
+
+        public long generation() {
+            return generation;
+        }
+
+        public PlayerTiers tiers() {
+            return tiers;
+        }
+
+        public Text original() {
+            return original;
+        }
+
+        public Text tagged() {
+            return tagged;
+        }
+
+        /**
+         * @return the width of {@link #tagged()} measured with that font generation, or -1 if there is none
+         */
+        public int getMemoWidth(int fontGeneration) {
+            long memo = widthMemo;
+            return memo != 0 && (int) (memo >>> 32) == fontGeneration ? (int) memo : -1;
+        }
+
+        public void setMemoWidth(int fontGeneration, int width) {
+            widthMemo = ((long) fontGeneration << 32) | (width & 0xFFFFFFFFL);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package net.catcart.fetch;
+
+/**
+ * Opens after a run of consecutive failures and rejects requests until the cool-down has
+ * passed. It then half-opens: exactly one probe request is let through while everyone else
+ * keeps being rejected. Success closes the breaker again, failure re-opens it. A probe that
+ * never reports back, e.g. because it was answered with 429, is given up on after a while and
+ * the next caller probes instead.
+ */
+public final class CircuitBreaker {
+    private static final long PROBE_TIMEOUT_MS = 10000;
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private int consecutiveFailures;
+    private long openUntil;
+    private long probeUntil;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Asks to send a request. While half-open, the first caller becomes the probe.
+     *
+     * @return 0 if the request may go through, otherwise the milliseconds to wait before asking again
+     */
+    public synchronized long tryAcquire() {
+        long remaining = remainingOpenMillis();
+        if (remaining == 0 && consecutiveFailures >= failureThreshold) {
+            probeUntil = System.currentTimeMillis() + PROBE_TIMEOUT_MS;
+        }
+        return remaining;
+    }
+
+    /**
+     * @return 0 if requests may go through, otherwise the milliseconds until the breaker
+     * half-opens or the running probe times out
+     */
+    public synchronized long remainingOpenMillis() {
+        long now = System.currentTimeMillis();
+        long remaining = Math.max(openUntil, probeUntil) - now;
+        return remaining > 0 ? remaining : 0;
+    }
+
+    public synchronized boolean isOpen() {
+        return remainingOpenMillis() > 0;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        openUntil = 0;
+        probeUntil = 0;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (consecutiveFailures >= failureThreshold) {
+            openUntil = System.currentTimeMillis() + openMillis;
+            probeUntil = 0;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package net.catcart.fetch;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request while the circuit breaker is open.
+ */
+public class FetchRejectedException extends IOException {
+    private final long retryAfterMillis;
+
+    public FetchRejectedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,172 @@
+package net.catcart.fetch;
+
+import net.catcart.SubtiersTagger;
+import net.catcart.config.SubtierConfig;
+import net.catcart.metrics.TierMetrics;
+import net.catcart.tier.PlayerTiers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Single entry point for requests to the subtiers.net rankings API, or whichever server
+ * {@link SubtierConfig#getRankingsUrl()} points at. Every caller shares one rate limiter and
+ * one circuit breaker, so a struggling backend is backed off from as a whole instead of by
+ * each worker on its own. Requests go through the shared {@link HttpClient},
+ * which keeps connections alive and multiplexes them over HTTP/2 where the server allows it.
+ */
+public final class RankingsApi {
+    public static final String RANKINGS_URL = "https://subtiers.net/api/rankings/";
+    public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final long DEFAULT_RETRY_AFTER_MS = 5000;
+
+    private static final RateLimiter RATE_LIMITER = new RateLimiter(10, 5.0);
+    private static final CircuitBreaker CIRCUIT_BREAKER = new CircuitBreaker(5, 30000);
+
+    /**
+     * @param tiers the decoded tiers for a 200 response, otherwise null
+     */
+    public record Response(int statusCode, PlayerTiers tiers) {
+    }
+
+    private RankingsApi() {
+    }
+
+    /**
+     * Takes a token from the shared rate limiter. Every {@link #fetch} needs one first;
+     * {@link TierFetchExecutor} takes it before it dequeues a request, so requests waiting on the
+     * limiter stay queued in priority order.
+     *
+     * @return 0 if a token was taken, otherwise the milliseconds until one will be
+     */
+    public static long tryAcquirePermit() {
+        return RATE_LIMITER.tryAcquire();
+    }
+
+    /**
+     * Requests the player's rankings, recording the outcome with the rate limiter and circuit breaker.
+     * The caller must already hold a {@linkplain #tryAcquirePermit rate-limit token}. The future
+     * fails with {@link FetchRejectedException} if the request was not sent because the breaker is open.
+     */
+    public static CompletableFuture<Response> fetch(UUID uuid) {
+        long openFor = CIRCUIT_BREAKER.tryAcquire();
+        if (openFor > 0) {
+            return CompletableFuture.failedFuture(new FetchRejectedException("Rankings API circuit is open", openFor));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(SubtierConfig.getRankingsUrl() + uuid.toString().replace("-", "")))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+
+        TierMetrics.FETCHES_STARTED.increment();
+        long sentAt = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> exchange = SubtiersTagger.getClient().sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture<Response> result = exchange
+                .whenComplete((response, error) -> {
+                    if (error instanceof CancellationException) {
+                        // Aborted by us, e.g. on disconnect; says nothing about the server.
+                    } else if (error != null) {
+                        TierMetrics.TRANSPORT_ERRORS.increment();
+                        CIRCUIT_BREAKER.recordFailure();
+                    } else {
+                        TierMetrics.FETCH_LATENCY.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAt));
+                        TierMetrics.recordResponseCode(response.statusCode());
+                        recordStatus(response);
+                    }
+                })
+                .thenApply(RankingsApi::toResponse);
+
+        // Cancelling a dependent stage does not reach the exchange, so pass it on; the client then aborts the request.
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static void recordStatus(HttpResponse<?> response) {
+        int statusCode = response.statusCode();
+        if (statusCode == 429) {
+            long retryAfter = parseRetryAfter(response.headers().firstValue("Retry-After").orElse(null));
+            RATE_LIMITER.pauseFor(retryAfter);
+            SubtiersTagger.LOGGER.warn("Rankings API rate limited us, pausing requests for {} ms.", retryAfter);
+        } else if (statusCode >= 500) {
+            CIRCUIT_BREAKER.recordFailure();
+            if (CIRCUIT_BREAKER.isOpen()) {
+                SubtiersTagger.LOGGER.warn("Rankings API keeps failing (last response {}), pausing requests.", statusCode);
+            }
+        } else {
+            CIRCUIT_BREAKER.recordSuccess();
+        }
+    }
+
+    private static Response toResponse(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            return new Response(response.statusCode(), null);
+        }
+
+        try (Reader reader = new InputStreamReader(openBody(response), StandardCharsets.UTF_8)) {
+            return new Response(200, RankingsDecoder.decode(reader, System.currentTimeMillis()));
+        } catch (IOException | RuntimeException e) {
+            throw new CompletionException(new IOException("Malformed rankings response", e));
+        }
+    }
+
+    /**
+     * The JDK client does not decompress on its own, so gzip bodies are unwrapped here.
+     */
+    public static InputStream openBody(HttpResponse<byte[]> response) throws IOException {
+        InputStream body = new ByteArrayInputStream(response.body());
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(body) : body;
+    }
+
+    /**
+     * @return 0 if requests may go out, otherwise the milliseconds until the circuit breaker lets one through
+     */
+    public static long getCircuitOpenMillis() {
+        return CIRCUIT_BREAKER.remainingOpenMillis();
+    }
+
+    static long parseRetryAfter(String header) {
+        if (header == null || header.isBlank()) {
+            return DEFAULT_RETRY_AFTER_MS;
+        }
+
+        try {
+            return Math.max(0, Long.parseLong(header.trim()) * 1000);
+        } catch (NumberFormatException ignored) {
+        }
+
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+        } catch (Exception ignored) {
+            return DEFAULT_RETRY_AFTER_MS;
+        }
+    }
+}
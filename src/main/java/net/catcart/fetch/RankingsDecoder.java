@@ -0,0 +1,90 @@
+package net.catcart.fetch;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import net.catcart.config.GameMode;
+import net.catcart.tier.PlayerTiers;
+import net.catcart.tier.Tier;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streams a rankings response straight into a {@link PlayerTiers}. Only the {@code uuid}, the
+ * known {@link GameMode#getApiKey()} objects and their {@code tier}, {@code pos} and {@code retired}
+ * fields are read; everything else is skipped without building a JSON tree.
+ */
+public final class RankingsDecoder {
+    private static final Map<String, GameMode> MODES_BY_KEY = new HashMap<>();
+
+    static {
+        for (GameMode mode : GameMode.values()) {
+            MODES_BY_KEY.put(mode.getApiKey(), mode);
+        }
+    }
+
+    private RankingsDecoder() {
+    }
+
+    public static PlayerTiers decode(Reader body, long fetchedAt) throws IOException {
+        byte[] tiers = new byte[GameMode.values().length];
+        readPlayer(new JsonReader(body), tiers);
+        return PlayerTiers.of(tiers, fetchedAt);
+    }
+
+    /**
+     * Reads one player's rankings object, the shape of a single rankings response and of each
+     * entry in a roster page.
+     *
+     * @param tiers filled with the tier codes by {@link GameMode} ordinal; cleared first
+     * @return the object's {@code uuid} field, or null if it has none
+     */
+    static String readPlayer(JsonReader reader, byte[] tiers) throws IOException {
+        Arrays.fill(tiers, (byte) 0);
+        String uuid = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            GameMode mode = MODES_BY_KEY.get(name);
+            if (mode != null && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                tiers[mode.ordinal()] = readTier(reader).getCode();
+            } else if (name.equals("uuid") && reader.peek() == JsonToken.STRING) {
+                uuid = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return uuid;
+    }
+
+    private static Tier readTier(JsonReader reader) throws IOException {
+        int tier = -1;
+        int pos = -1;
+        boolean retired = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+
+            switch (field) {
+                case "tier" -> tier = reader.nextInt();
+                case "pos" -> pos = reader.nextInt();
+                // Accept both true and "true"; the old /stt code read this field as a string.
+                case "retired" -> retired = reader.peek() == JsonToken.BOOLEAN ? reader.nextBoolean() : Boolean.parseBoolean(reader.nextString());
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return pos < 0 ? Tier.NONE : Tier.of(tier, pos, retired);
+    }
+}
@@ -0,0 +1,58 @@
+package net.catcart.fetch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket shared by every request to one API. Callers never block on it: when no token
+ * is available they get the time until the next one and reschedule themselves.
+ */
+public final class RateLimiter {
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    public RateLimiter(int burst, double permitsPerSecond) {
+        this.capacity = burst;
+        this.tokensPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+        // nanoTime has an arbitrary origin and may be negative, so "not paused" has to start from now rather than 0.
+        this.pausedUntil = lastRefill;
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the milliseconds until one will be
+     */
+    public synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        if (now - pausedUntil < 0) {
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(pausedUntil - now));
+        }
+
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis((long) ((1 - tokens) / tokensPerNano)));
+    }
+
+    /**
+     * Stops handing out tokens for the given time, e.g. when the server answers with {@code Retry-After}.
+     */
+    public synchronized void pauseFor(long millis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+        tokens = 0;
+        lastRefill = until;
+    }
+}
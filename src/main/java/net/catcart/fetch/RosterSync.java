@@ -0,0 +1,298 @@
+package net.catcart.fetch;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.mojang.util.UndashedUuid;
+import net.catcart.SubtiersTagger;
+import net.catcart.config.GameMode;
+import net.catcart.config.SubtierConfig;
+import net.catcart.metrics.TierMetrics;
+import net.catcart.tier.TierLookupService;
+import net.catcart.tier.TierRoster;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Roster mode: keeps every ranked player's tiers in a {@link TierRoster} downloaded from
+ * {@link SubtierConfig#getRosterUrl()}, so {@link TierLookupService} answers lookups from memory
+ * and the number of requests no longer depends on how many players are around. The roster is
+ * downloaded once, then only the changes are fetched every {@link SubtierConfig#getRosterSyncSeconds()}.
+ * The mode is off while the URL is blank.
+ * <p>
+ * The endpoint answers {@code GET <url>} with the whole roster and {@code GET <url>?since=<version>}
+ * with what changed since that version, both as pages of:
+ * <pre>{@code
+ * {
+ *   "version": 1234,
+ *   "next": "opaque cursor, or null on the last page",
+ *   "players": [{"uuid": "...", "minecart": {"tier": 2, "pos": 0, "retired": false}, ...}, ...],
+ *   "removed": ["uuid", ...]
+ * }
+ * }</pre>
+ * Each player object has the shape of a single rankings response plus its {@code uuid}, and
+ * replaces whatever the player had before. {@code removed} lists players who are no longer
+ * ranked and only appears in changes. Further pages are requested with {@code cursor=<next>}
+ * added to the query; a server without paging sends everything with {@code next} null. The
+ * version is taken from the first page, so changes made while paging are fetched again next
+ * time. A server that can no longer tell what changed since a version answers 410, and the
+ * whole roster is downloaded again.
+ */
+public final class RosterSync {
+    public static final int DEFAULT_SYNC_SECONDS = 60;
+
+    private static final Duration PAGE_TIMEOUT = Duration.ofSeconds(30);
+    private static final int EXPECTED_PLAYERS = 100000;
+
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "SubTierTagger-Roster");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    private record Page(long version, String next) {
+    }
+
+    /**
+     * Where the players read from a page go: straight into a new roster, or collected as changes.
+     */
+    private interface PageSink {
+        void put(UUID uuid, byte[] tiers);
+
+        void remove(UUID uuid);
+    }
+
+    private RosterSync() {
+    }
+
+    /**
+     * Starts syncing in the background. The URL is checked on every sync, so the mode can be
+     * turned on or off in the config without a restart.
+     */
+    public static void start() {
+        if (started.compareAndSet(false, true)) {
+            TIMER.execute(RosterSync::syncAndReschedule);
+        }
+    }
+
+    /**
+     * Syncs right away on the roster thread.
+     *
+     * @return the roster in use afterwards, or null if roster mode is off or nothing could be downloaded
+     */
+    public static CompletableFuture<TierRoster> syncNow() {
+        return CompletableFuture.supplyAsync(RosterSync::sync, TIMER);
+    }
+
+    private static void syncAndReschedule() {
+        try {
+            sync();
+        } finally {
+            TIMER.schedule(RosterSync::syncAndReschedule, SubtierConfig.getRosterSyncSeconds(), TimeUnit.SECONDS);
+        }
+    }
+
+    private static TierRoster sync() {
+        String url = SubtierConfig.getRosterUrl();
+        TierRoster current = TierLookupService.getRoster();
+        if (current != null && !current.getSource().equals(url)) {
+            // Turned off or pointed elsewhere; players are fetched one by one until a new roster is in.
+            TierLookupService.setRoster(null);
+            current = null;
+        }
+        if (url.isEmpty()) {
+            return null;
+        }
+
+        try {
+            TierRoster next = current == null ? download(url) : update(url, current);
+            if (next != current) {
+                TierLookupService.setRoster(next);
+            }
+            TierMetrics.ROSTER_SYNCS.increment();
+            return next;
+        } catch (IOException | RuntimeException e) {
+            TierMetrics.ROSTER_SYNC_FAILURES.increment();
+            SubtiersTagger.LOGGER.warn("Failed to sync the tier roster from {}: {}", url, e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return current;
+    }
+
+    private static TierRoster download(String url) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        // Filled before it is published, so no reader sees it half downloaded.
+        TierRoster roster = new TierRoster(url, EXPECTED_PLAYERS);
+        long version = readPages(url, -1, new PageSink() {
+            @Override
+            public void put(UUID uuid, byte[] tiers) {
+                roster.put(uuid, tiers);
+            }
+
+            @Override
+            public void remove(UUID uuid) {
+                roster.remove(uuid);
+            }
+        });
+
+        roster.markSynced(version, System.currentTimeMillis());
+        SubtiersTagger.LOGGER.info("Downloaded the tier roster, {} ranked players at version {}, in {} ms.",
+                roster.size(), version, System.currentTimeMillis() - start);
+        return roster;
+    }
+
+    /**
+     * Applies what changed since the roster's version to it in place.
+     *
+     * @return the same roster, or a new one if the server made us download it again
+     */
+    private static TierRoster update(String url, TierRoster current) throws IOException, InterruptedException {
+        // Collected first and applied in one go, so a page failing halfway leaves the roster as it was.
+        Map<UUID, byte[]> changes = new LinkedHashMap<>();
+        long version;
+        try {
+            version = readPages(url, current.getVersion(), new PageSink() {
+                @Override
+                public void put(UUID uuid, byte[] tiers) {
+                    changes.put(uuid, tiers.clone());
+                }
+
+                @Override
+                public void remove(UUID uuid) {
+                    changes.put(uuid, null);
+                }
+            });
+        } catch (RosterGoneException e) {
+            SubtiersTagger.LOGGER.info("The tier roster server no longer has changes since version {}, downloading it again.", current.getVersion());
+            return download(url);
+        }
+
+        long now = System.currentTimeMillis();
+        if (changes.isEmpty()) {
+            current.markSynced(version, now);
+            return current;
+        }
+
+        current.apply(changes, version, now);
+        // Tagged names built from the old tiers have to go.
+        TierLookupService.onRosterChanged();
+        SubtiersTagger.LOGGER.debug("Applied {} tier roster changes, now at version {}.", changes.size(), version);
+        return current;
+    }
+
+    /**
+     * Reads every page of the roster, or of the changes since a version.
+     *
+     * @param since the version to fetch changes since, or -1 for the whole roster
+     * @return the version reported by the first page
+     */
+    private static long readPages(String url, long since, PageSink sink) throws IOException, InterruptedException {
+        long version = -1;
+        String cursor = null;
+        do {
+            Page page = readPage(url, since, cursor, sink);
+            if (version < 0) {
+                version = page.version();
+            }
+            cursor = page.next();
+        } while (cursor != null);
+        return version;
+    }
+
+    private static Page readPage(String url, long since, String cursor, PageSink sink) throws IOException, InterruptedException {
+        StringBuilder query = new StringBuilder();
+        if (since >= 0) {
+            query.append("since=").append(since);
+        }
+        if (cursor != null) {
+            query.append(query.isEmpty() ? "" : "&").append("cursor=").append(URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+        }
+        String uri = query.isEmpty() ? url : url + (url.contains("?") ? "&" : "?") + query;
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(PAGE_TIMEOUT)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = SubtiersTagger.getClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 410 && since >= 0) {
+            throw new RosterGoneException();
+        } else if (response.statusCode() != 200) {
+            throw new IOException("Unexpected response code " + response.statusCode());
+        }
+
+        try (Reader reader = new InputStreamReader(RankingsApi.openBody(response), StandardCharsets.UTF_8)) {
+            return decodePage(reader, sink);
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed roster page", e);
+        }
+    }
+
+    private static Page decodePage(Reader body, PageSink sink) throws IOException {
+        long version = -1;
+        String next = null;
+        byte[] tiers = new byte[GameMode.values().length];
+
+        JsonReader reader = new JsonReader(body);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+
+            switch (name) {
+                case "version" -> version = reader.nextLong();
+                case "next" -> next = reader.nextString();
+                case "players" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        String uuid = RankingsDecoder.readPlayer(reader, tiers);
+                        if (uuid != null) {
+                            sink.put(UndashedUuid.fromStringLenient(uuid), tiers);
+                        }
+                    }
+                    reader.endArray();
+                }
+                case "removed" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        sink.remove(UndashedUuid.fromStringLenient(reader.nextString()));
+                    }
+                    reader.endArray();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (version < 0) {
+            throw new IOException("Roster page has no version");
+        }
+        return new Page(version, next);
+    }
+
+    private static final class RosterGoneException extends IOException {
+        private RosterGoneException() {
+            super("Roster changes are no longer available");
+        }
+    }
+}
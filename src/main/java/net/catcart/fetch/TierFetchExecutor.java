@@ -0,0 +1,223 @@
+package net.catcart.fetch;
+
+import net.catcart.SubtiersTagger;
+import net.catcart.config.SubtierConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many tier requests are in flight at once. Requests are asynchronous, so no thread
+ * is held while one is in flight; work beyond the cap waits in the queue and is started as
+ * earlier requests complete. Joining a big lobby therefore queues requests instead of opening
+ * hundreds of connections at once.
+ * <p>
+ * Whenever a slot frees up, the queued request for the player with the lowest value in the
+ * current {@linkplain #setPriorities priority snapshot} goes next. Priorities are read at that
+ * moment rather than on submit, so the order follows the local player as they move around.
+ * <p>
+ * A request also needs a token from the rankings API rate limiter before it leaves the queue.
+ * While none is available, everything stays queued and a single timer wakes the queue when the
+ * next token is due, so the limited throughput goes to the highest priority at that moment.
+ * The same goes while the rankings API circuit breaker is open, so an outage neither uses up
+ * tokens nor fails requests that never reached the server.
+ */
+public final class TierFetchExecutor {
+    public static final int DEFAULT_MAX_CONCURRENT_FETCHES = 4;
+
+    private static final List<QueuedFetch<?>> queue = new ArrayList<>(); // guarded by itself
+    private static final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger running = new AtomicInteger();
+    private static volatile Map<UUID, Double> priorities = Map.of();
+    // Pump calls made while another is draining; the drainer loops until this drops back to zero.
+    private static final AtomicInteger pumpRequests = new AtomicInteger();
+    private static final AtomicBoolean wakeScheduled = new AtomicBoolean();
+
+    private TierFetchExecutor() {
+    }
+
+    /**
+     * Queues a request for {@code player}. {@code request} is only invoked once a slot is free,
+     * and the returned future completes with its result, or is cancelled if the executor is shut
+     * down first. Cancelling the returned future while it is queued drops it from the queue.
+     */
+    public static <T> CompletableFuture<T> submit(UUID player, Supplier<CompletableFuture<T>> request) {
+        QueuedFetch<T> fetch = new QueuedFetch<>(player, request);
+        int queued;
+        synchronized (queue) {
+            queue.add(fetch);
+            queued = queue.size();
+        }
+        fetch.result.whenComplete((value, error) -> {
+            if (fetch.result.isCancelled()) {
+                synchronized (queue) {
+                    queue.remove(fetch);
+                }
+            }
+        });
+
+        if (queued > 1) {
+            SubtiersTagger.LOGGER.debug("Tier fetch queued ({} waiting, {} running)", queued, running.get());
+        }
+
+        pump();
+        return fetch.result;
+    }
+
+    /**
+     * Replaces the priority snapshot. Lower values are fetched first; players missing from the
+     * map, e.g. those only in the tab list, go after everyone in it, in the order they were queued.
+     */
+    public static void setPriorities(Map<UUID, Double> snapshot) {
+        priorities = Map.copyOf(snapshot);
+    }
+
+    /**
+     * Starts queued requests while there are free slots, rate-limit tokens and a closed circuit. Only one thread
+     * drains at a time, and a request that completes inline asks for another pass instead of
+     * recursing into this, so the stack stays flat however long the queue is.
+     */
+    private static void pump() {
+        if (pumpRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            drain();
+            missed = pumpRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private static void drain() {
+        int cap = Math.max(1, SubtierConfig.getMaxConcurrentFetches());
+        while (running.get() < cap && getQueueDepth() > 0) {
+            long wait = RankingsApi.getCircuitOpenMillis();
+            if (wait == 0) {
+                wait = RankingsApi.tryAcquirePermit();
+            }
+            if (wait > 0) {
+                wakeAfter(wait);
+                return;
+            }
+
+            QueuedFetch<?> next = pollHighestPriority();
+            if (next == null) {
+                // Emptied by a cancel or shutdown since the depth check.
+                return;
+            }
+            if (next.result.isDone()) {
+                // Cancelled just before it was removed; the token is lost, which is rare enough not to matter.
+                continue;
+            }
+            running.incrementAndGet();
+            next.start();
+        }
+    }
+
+    private static void wakeAfter(long delayMillis) {
+        if (wakeScheduled.compareAndSet(false, true)) {
+            TierRetryScheduler.runAfter(delayMillis, () -> {
+                wakeScheduled.set(false);
+                pump();
+            });
+        }
+    }
+
+    private static QueuedFetch<?> pollHighestPriority() {
+        Map<UUID, Double> current = priorities;
+        synchronized (queue) {
+            int best = -1;
+            double bestPriority = Double.MAX_VALUE;
+            for (int i = 0; i < queue.size(); i++) {
+                double priority = current.getOrDefault(queue.get(i).player, Double.MAX_VALUE);
+                if (best < 0 || priority < bestPriority) {
+                    best = i;
+                    bestPriority = priority;
+                }
+            }
+            return best < 0 ? null : queue.remove(best);
+        }
+    }
+
+    public static int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public static int getActiveCount() {
+        return running.get();
+    }
+
+    /**
+     * Cancels queued and in-flight requests, e.g. on disconnect. In-flight requests are cancelled
+     * through the future their supplier returned, which must abort the request itself when
+     * cancelled, as {@link RankingsApi#fetch} does.
+     */
+    public static void shutdown() {
+        List<QueuedFetch<?>> dropped;
+        synchronized (queue) {
+            dropped = new ArrayList<>(queue);
+            queue.clear();
+        }
+        List<CompletableFuture<?>> active = new ArrayList<>(inFlight);
+
+        dropped.forEach(fetch -> fetch.result.cancel(false));
+        active.forEach(request -> request.cancel(true));
+
+        SubtiersTagger.LOGGER.info("Cancelled {} queued and {} running tier fetches.", dropped.size(), active.size());
+    }
+
+    /**
+     * Strips the {@link CompletionException} wrappers that dependent futures add around a failure.
+     */
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static final class QueuedFetch<T> {
+        private final UUID player;
+        private final Supplier<CompletableFuture<T>> request;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private QueuedFetch(UUID player, Supplier<CompletableFuture<T>> request) {
+            this.player = player;
+            this.request = request;
+        }
+
+        private void start() {
+            CompletableFuture<T> future;
+            try {
+                future = request.get();
+            } catch (Throwable t) {
+                future = CompletableFuture.failedFuture(t);
+            }
+
+            CompletableFuture<T> started = future;
+            inFlight.add(started);
+            started.whenComplete((value, error) -> {
+                inFlight.remove(started);
+                running.decrementAndGet();
+
+                if (error != null) {
+                    result.completeExceptionally(unwrap(error));
+                } else {
+                    result.complete(value);
+                }
+                pump();
+            });
+        }
+    }
+}
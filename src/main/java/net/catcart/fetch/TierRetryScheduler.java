@@ -0,0 +1,111 @@
+package net.catcart.fetch;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared timer for fetch retries and scheduled refreshes. A failed attempt releases its worker
+ * and leaves only a timer entry behind, which re-queues the next attempt on
+ * {@link TierFetchExecutor} once the backoff has passed. A player has at most one pending entry.
+ */
+public final class TierRetryScheduler {
+    private static final long BASE_DELAY_MS = 1000;
+    private static final long MAX_DELAY_MS = 30000;
+
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+    private static final Map<UUID, PendingRetry> pendingRetries = new ConcurrentHashMap<>();
+
+    private TierRetryScheduler() {
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "SubTierTagger-Retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Schedules {@code retry} after an exponential backoff for the given attempt, with
+     * +/-50% jitter so players that failed together do not retry together.
+     */
+    public static void schedule(UUID uuid, int attempt, Runnable retry) {
+        long delay = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt, 16));
+        scheduleAfter(uuid, delay / 2 + ThreadLocalRandom.current().nextLong(delay + 1), retry);
+    }
+
+    /**
+     * Schedules {@code retry} after a fixed delay, replacing any retry already pending for the player.
+     */
+    public static void scheduleAfter(UUID uuid, long delayMillis, Runnable retry) {
+        PendingRetry pending = new PendingRetry(uuid, retry);
+        PendingRetry previous = pendingRetries.put(uuid, pending);
+        if (previous != null) {
+            previous.cancel();
+        }
+        pending.future = TIMER.schedule(pending, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs {@code task} once after the delay, on the same timer, without tying it to a player.
+     */
+    public static void runAfter(long delayMillis, Runnable task) {
+        TIMER.schedule(task, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    public static boolean cancel(UUID uuid) {
+        PendingRetry pending = pendingRetries.remove(uuid);
+        if (pending == null) {
+            return false;
+        }
+        pending.cancel();
+        return true;
+    }
+
+    public static void cancelAll() {
+        pendingRetries.values().forEach(PendingRetry::cancel);
+        pendingRetries.clear();
+    }
+
+    public static boolean isPending(UUID uuid) {
+        return pendingRetries.containsKey(uuid);
+    }
+
+    public static int getPendingCount() {
+        return pendingRetries.size();
+    }
+
+    private static final class PendingRetry implements Runnable {
+        private final UUID uuid;
+        private final Runnable retry;
+        private volatile ScheduledFuture<?> future;
+
+        private PendingRetry(UUID uuid, Runnable retry) {
+            this.uuid = uuid;
+            this.retry = retry;
+        }
+
+        @Override
+        public void run() {
+            // Only the entry still registered for the player may fire; cancelled ones were removed.
+            if (pendingRetries.remove(uuid, this)) {
+                retry.run();
+            }
+        }
+
+        private void cancel() {
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package net.catcart.metrics;
+
+import com.google.gson.JsonObject;
+import net.catcart.fetch.TierFetchExecutor;
+import net.catcart.fetch.TierRetryScheduler;
+import net.catcart.tier.TierLookupService;
+import net.catcart.tier.TierRoster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the tagging pipeline, shown by {@code /stt stats}, the
+ * debug HUD and the periodic stats dump. Everything here is a {@link LongAdder} or a
+ * {@link LatencyHistogram}, so recording never locks and is cheap enough for the render path.
+ */
+public final class TierMetrics {
+    // Only players waiting for their first tag are tracked, so this stays small; the cap covers the odd leak.
+    private static final int MAX_WAITING_PLAYERS = 4096;
+
+    public static final LongAdder DISPLAY_CACHE_HITS = new LongAdder();
+    public static final LongAdder DISPLAY_CACHE_MISSES = new LongAdder();
+
+    public static final LongAdder FETCHES_STARTED = new LongAdder();
+    public static final LongAdder FETCHES_SUCCEEDED = new LongAdder();
+    public static final LongAdder FETCHES_FAILED = new LongAdder();
+    public static final LongAdder FETCHES_RETRIED = new LongAdder();
+    public static final LongAdder TRANSPORT_ERRORS = new LongAdder();
+
+    public static final LongAdder ROSTER_SYNCS = new LongAdder();
+    public static final LongAdder ROSTER_SYNC_FAILURES = new LongAdder();
+
+    /** Time from sending a rankings request to its response, in milliseconds. */
+    public static final LatencyHistogram FETCH_LATENCY = new LatencyHistogram();
+    /** Time from a player's first render without tiers to their tiers being shown, in milliseconds. */
+    public static final LatencyHistogram TIME_TO_TAG = new LatencyHistogram();
+
+    private static final ConcurrentHashMap<Integer, LongAdder> responseCodes = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<UUID, Long> firstRenderNanos = new ConcurrentHashMap<>();
+
+    private TierMetrics() {
+    }
+
+    public static void recordResponseCode(int statusCode) {
+        responseCodes.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+    }
+
+    /**
+     * Called when a player is rendered before their tiers are known. Only the first call counts.
+     */
+    public static void markFirstRender(UUID uuid) {
+        if (firstRenderNanos.size() < MAX_WAITING_PLAYERS) {
+            firstRenderNanos.putIfAbsent(uuid, System.nanoTime());
+        }
+    }
+
+    /**
+     * Called when a player's tiers are first available to render.
+     */
+    public static void markTiersShown(UUID uuid) {
+        Long since = firstRenderNanos.remove(uuid);
+        if (since != null) {
+            TIME_TO_TAG.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since));
+        }
+    }
+
+    public static void forget(UUID uuid) {
+        firstRenderNanos.remove(uuid);
+    }
+
+    public static void clearWaiting() {
+        firstRenderNanos.clear();
+    }
+
+    /**
+     * @return a few human-readable lines describing the current numbers
+     */
+    public static List<String> describe() {
+        long hits = DISPLAY_CACHE_HITS.sum();
+        long misses = DISPLAY_CACHE_MISSES.sum();
+        long lookups = hits + misses;
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Name cache: %d hits, %d misses (%.1f%% hit)", hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups));
+        lines.add(String.format("Fetches: %d sent, %d ok, %d failed, %d retried, %d transport errors",
+                FETCHES_STARTED.sum(), FETCHES_SUCCEEDED.sum(), FETCHES_FAILED.sum(), FETCHES_RETRIED.sum(), TRANSPORT_ERRORS.sum()));
+        lines.add("Responses: " + getResponseCodes());
+        lines.add("Fetch latency: " + describe(FETCH_LATENCY));
+        lines.add("Render to tagged: " + describe(TIME_TO_TAG));
+        lines.add(String.format("Queue: %d waiting, %d in flight, %d retries pending, %d players cached",
+                TierFetchExecutor.getQueueDepth(), TierFetchExecutor.getActiveCount(),
+                TierRetryScheduler.getPendingCount(), TierLookupService.getCachedPlayerCount()));
+
+        TierRoster roster = TierLookupService.getRoster();
+        if (roster != null) {
+            lines.add(String.format("Roster: %d players at version %d, synced %d s ago, %d syncs, %d failed",
+                    roster.size(), roster.getVersion(), (System.currentTimeMillis() - roster.getSyncedAt()) / 1000,
+                    ROSTER_SYNCS.sum(), ROSTER_SYNC_FAILURES.sum()));
+        }
+        return lines;
+    }
+
+    private static String describe(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return "no samples";
+        }
+        return String.format("p50 %d ms, p90 %d ms, p99 %d ms, max %d ms (%d samples)",
+                histogram.getPercentile(50), histogram.getPercentile(90), histogram.getPercentile(99),
+                histogram.getMax(), histogram.getCount());
+    }
+
+    public static JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("timestamp", System.currentTimeMillis());
+        json.addProperty("displayCacheHits", DISPLAY_CACHE_HITS.sum());
+        json.addProperty("displayCacheMisses", DISPLAY_CACHE_MISSES.sum());
+        json.addProperty("fetchesStarted", FETCHES_STARTED.sum());
+        json.addProperty("fetchesSucceeded", FETCHES_SUCCEEDED.sum());
+        json.addProperty("fetchesFailed", FETCHES_FAILED.sum());
+        json.addProperty("fetchesRetried", FETCHES_RETRIED.sum());
+        json.addProperty("transportErrors", TRANSPORT_ERRORS.sum());
+
+        JsonObject codes = new JsonObject();
+        getResponseCodes().forEach((code, count) -> codes.addProperty(String.valueOf(code), count));
+        json.add("responseCodes", codes);
+
+        json.add("fetchLatencyMs", toJson(FETCH_LATENCY));
+        json.add("timeToTagMs", toJson(TIME_TO_TAG));
+        json.addProperty("queueDepth", TierFetchExecutor.getQueueDepth());
+        json.addProperty("inFlight", TierFetchExecutor.getActiveCount());
+        json.addProperty("pendingRetries", TierRetryScheduler.getPendingCount());
+        json.addProperty("cachedPlayers", TierLookupService.getCachedPlayerCount());
+
+        TierRoster roster = TierLookupService.getRoster();
+        json.addProperty("rosterPlayers", roster == null ? 0 : roster.size());
+        json.addProperty("rosterVersion", roster == null ? -1 : roster.getVersion());
+        json.addProperty("rosterSyncs", ROSTER_SYNCS.sum());
+        json.addProperty("rosterSyncFailures", ROSTER_SYNC_FAILURES.sum());
+        return json;
+    }
+
+    private static JsonObject toJson(LatencyHistogram histogram) {
+        JsonObject json = new JsonObject();
+        json.addProperty("count", histogram.getCount());
+        json.addProperty("mean", histogram.getMean());
+        json.addProperty("p50", histogram.getPercentile(50));
+        json.addProperty("p90", histogram.getPercentile(90));
+        json.addProperty("p99", histogram.getPercentile(99));
+        json.addProperty("max", histogram.getMax());
+        return json;
+    }
+
+    private static Map<Integer, Long> getResponseCodes() {
+        Map<Integer, Long> codes = new TreeMap<>();
+        responseCodes.forEach((code, count) -> codes.put(code, count.sum()));
+        return codes;
+    }
+}
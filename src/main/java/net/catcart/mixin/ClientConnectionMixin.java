@@ -1,6 +1,8 @@
 package net.catcart.mixin;
 
 import net.catcart.SubtiersTagger;
+import net.catcart.fetch.TierFetchExecutor;
+import net.catcart.fetch.TierRetryScheduler;
 import net.minecraft.network.ClientConnection;
 import net.minecraft.text.Text;
 import org.spongepowered.asm.mixin.Mixin;
@@ -12,6 +14,8 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 public class ClientConnectionMixin {
     @Inject(method = "disconnect", at = @At("HEAD"))
     public void onDisconnect(Text reason, CallbackInfo ci) {
+        TierRetryScheduler.cancelAll();
+        TierFetchExecutor.shutdown();
         SubtiersTagger.clearAllCaches();
     }
 }
@@ -2,26 +2,33 @@ package net.catcart.mixin;
 
 import com.llamalad7.mixinextras.injector.ModifyReturnValue;
 import net.catcart.SubtiersTagger;
-import net.catcart.config.SubtierConfig;
+import net.catcart.duck.TierTagHolder;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.text.Text;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 
 @Mixin(PlayerEntity.class)
-public class ExampleMixin {
+public class ExampleMixin implements TierTagHolder {
+	@Unique
+	private TaggedName subtiertagger$taggedName;
 
+	@Override
+	public TaggedName subtiertagger$getTaggedName() {
+		return subtiertagger$taggedName;
+	}
+
+	@Override
+	public void subtiertagger$setTaggedName(TaggedName taggedName) {
+		this.subtiertagger$taggedName = taggedName;
+	}
 
 	@ModifyReturnValue(method = "getDisplayName", at = @At("RETURN"))
 	public Text prependTier(Text original) {
 		PlayerEntity self = (PlayerEntity) (Object) this;
 
-		Text cachedName = SubtiersTagger.getDisplayNameCache().get(self.getUuid());
-		if (cachedName != null) {
-			return cachedName;
-		}
-
 		return SubtiersTagger.appendTier(self, original);
 
 	}
-}
\ No newline at end of file
+}
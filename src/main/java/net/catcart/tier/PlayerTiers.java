@@ -0,0 +1,95 @@
+package net.catcart.tier;
+
+import net.catcart.config.GameMode;
+
+import java.util.Arrays;
+
+/**
+ * Immutable tier record for one player: one {@link Tier} code per {@link GameMode} ordinal
+ * and the time they were fetched. A refetch publishes a new instance instead of mutating this one.
+ * <p>
+ * The player's highest tier and the mode it is in are worked out once on construction, so
+ * the render path never has to compare tiers.
+ */
+public final class PlayerTiers {
+    public static final long EXPIRATION_TIME = 300000;
+    public static final long MAX_STALE_TIME = 1800000;
+
+    private final byte[] tiers;
+    private final long fetchedAt;
+    private final GameMode bestMode;
+
+    private PlayerTiers(byte[] tiers, long fetchedAt) {
+        this.tiers = tiers;
+        this.fetchedAt = fetchedAt;
+        this.bestMode = findBestMode(tiers);
+    }
+
+    private static GameMode findBestMode(byte[] tiers) {
+        GameMode best = null;
+        Tier bestTier = Tier.NONE;
+        for (GameMode mode : GameMode.values()) {
+            Tier tier = Tier.byCode(tiers[mode.ordinal()]);
+            if (tier.isHigherThan(bestTier)) {
+                best = mode;
+                bestTier = tier;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param tiers tier codes indexed by {@link GameMode} ordinal, copied
+     */
+    public static PlayerTiers of(byte[] tiers, long fetchedAt) {
+        return new PlayerTiers(Arrays.copyOf(tiers, GameMode.values().length), fetchedAt);
+    }
+
+    public static PlayerTiers none(long fetchedAt) {
+        return new PlayerTiers(new byte[GameMode.values().length], fetchedAt);
+    }
+
+    public Tier get(GameMode mode) {
+        return Tier.byCode(tiers[mode.ordinal()]);
+    }
+
+    /**
+     * @return the mode the player's highest tier is in, or null if they are unranked everywhere
+     */
+    public GameMode getBestMode() {
+        return bestMode;
+    }
+
+    public Tier getBestTier() {
+        return bestMode == null ? Tier.NONE : get(bestMode);
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * Expired tiers are still shown, but should be refreshed.
+     */
+    public boolean isExpired() {
+        return System.currentTimeMillis() - fetchedAt > EXPIRATION_TIME;
+    }
+
+    /**
+     * Tiers this old are no longer shown at all.
+     */
+    public boolean isTooStale() {
+        return System.currentTimeMillis() - fetchedAt > MAX_STALE_TIME;
+    }
+
+    /**
+     * @return whether both have the same tier in every mode, whenever they were fetched
+     */
+    public boolean hasSameTiers(PlayerTiers other) {
+        return Arrays.equals(tiers, other.tiers);
+    }
+
+    public byte[] toCodes() {
+        return tiers.clone();
+    }
+}
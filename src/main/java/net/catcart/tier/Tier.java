@@ -0,0 +1,77 @@
+package net.catcart.tier;
+
+/**
+ * Every tier the rankings API can report, declared from lowest to highest so that
+ * {@link #isHigherThan} is a plain ordinal compare. A retired tier ranks just below its active
+ * counterpart. {@link #getCode()} is a stable one-byte encoding, independent of the
+ * ranking, used both in memory by {@link PlayerTiers} and in the disk cache.
+ */
+public enum Tier {
+    NONE(0, "NoTier"),
+    RLT5(20, "RLT5"),
+    LT5(10, "LT5"),
+    RHT5(19, "RHT5"),
+    HT5(9, "HT5"),
+    RLT4(18, "RLT4"),
+    LT4(8, "LT4"),
+    RHT4(17, "RHT4"),
+    HT4(7, "HT4"),
+    RLT3(16, "RLT3"),
+    LT3(6, "LT3"),
+    RHT3(15, "RHT3"),
+    HT3(5, "HT3"),
+    RLT2(14, "RLT2"),
+    LT2(4, "LT2"),
+    RHT2(13, "RHT2"),
+    HT2(3, "HT2"),
+    RLT1(12, "RLT1"),
+    LT1(2, "LT1"),
+    RHT1(11, "RHT1"),
+    HT1(1, "HT1");
+
+    private static final Tier[] BY_CODE = new Tier[values().length];
+
+    static {
+        for (Tier tier : values()) {
+            BY_CODE[tier.code] = tier;
+        }
+    }
+
+    private final byte code;
+    private final String label;
+
+    Tier(int code, String label) {
+        this.code = (byte) code;
+        this.label = label;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean isHigherThan(Tier other) {
+        return ordinal() > other.ordinal();
+    }
+
+    public boolean isNone() {
+        return this == NONE;
+    }
+
+    public static Tier byCode(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : NONE;
+    }
+
+    /**
+     * Maps the API's numeric tier (1-5) and position (0 = high, 1 = low) to a tier.
+     */
+    public static Tier of(int tier, int pos, boolean retired) {
+        if (tier < 1 || tier > 5) {
+            return NONE;
+        }
+        return BY_CODE[(retired ? RHT1.code : HT1.code) + (tier - 1) * 2 + (pos == 0 ? 0 : 1)];
+    }
+}
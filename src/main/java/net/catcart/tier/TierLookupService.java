@@ -0,0 +1,352 @@
+package net.catcart.tier;
+
+import net.catcart.SubtiersTagger;
+import net.catcart.cache.LruCache;
+import net.catcart.cache.TierDiskCache;
+import net.catcart.config.SubtierConfig;
+import net.catcart.fetch.FetchRejectedException;
+import net.catcart.fetch.RankingsApi;
+import net.catcart.fetch.TierFetchExecutor;
+import net.catcart.fetch.TierRetryScheduler;
+import net.catcart.metrics.TierMetrics;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The one place tiers are looked up, shared by nametags and commands. Each player has at most
+ * one lookup in flight; every caller asking for the same player while it runs gets the same
+ * future, and whatever it fetches lands in the shared cache.
+ * <p>
+ * In roster mode every lookup is answered from the {@link TierRoster} kept by
+ * {@link net.catcart.fetch.RosterSync} instead, without a request, for as long as it is not too stale.
+ */
+public final class TierLookupService {
+    public static final int DEFAULT_MAX_CACHED_PLAYERS = 1000;
+
+    private static final int MAX_FETCH_ATTEMPTS = 3;
+    private static final long REFRESH_SPREAD_MS = 60000;
+
+    private static final AtomicLong version = new AtomicLong();
+    // Players in the tab list or rendered; only they are refreshed in the background.
+    private static final Set<UUID> trackedPlayers = ConcurrentHashMap.newKeySet();
+    private static final LruCache<UUID, PlayerTiers> allPlayerTiers = new LruCache<>(SubtierConfig::getMaxCachedPlayers, TierLookupService::onTrimmed);
+    private static final ConcurrentHashMap<UUID, CompletableFuture<PlayerTiers>> ongoingFetches = new ConcurrentHashMap<>();
+    // Lookups someone is waiting on, which fail fast instead of waiting out an open circuit.
+    private static final Set<CompletableFuture<PlayerTiers>> interactiveFetches = ConcurrentHashMap.newKeySet();
+    private static volatile TierRoster roster;
+
+    private TierLookupService() {
+    }
+
+    /**
+     * Goes up whenever cached tiers a tagged name may have been built from are replaced or
+     * dropped in bulk, so a tagged name can be checked with one read instead of looking its
+     * player up again. A player's first tiers and a single player leaving do not count.
+     */
+    public static long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @return the tiers in memory or, failing that, a usable disk cache entry; null if neither exists
+     */
+    public static PlayerTiers getCached(UUID uuid) {
+        PlayerTiers local = fromRoster(uuid);
+        if (local != null) {
+            return local;
+        }
+        PlayerTiers tiers = allPlayerTiers.get(uuid);
+        return tiers != null ? tiers : restoreFromDisk(uuid);
+    }
+
+    /**
+     * Returns fresh cached tiers right away, otherwise joins or starts a fetch.
+     */
+    public static CompletableFuture<PlayerTiers> lookup(UUID uuid, String playerName) {
+        PlayerTiers cached = getCached(uuid);
+        if (cached != null && !cached.isExpired()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return refresh(uuid, playerName);
+    }
+
+    /**
+     * Like {@link #lookup}, for a user waiting on the answer, e.g. {@code /stt}. While the rankings
+     * API circuit is open, this fails right away with a {@link FetchRejectedException}, or answers
+     * with the cached tiers if there are any, instead of retrying until the circuit closes.
+     */
+    public static CompletableFuture<PlayerTiers> lookupInteractive(UUID uuid, String playerName) {
+        PlayerTiers cached = getCached(uuid);
+        if (cached != null && !cached.isExpired()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        long openFor = RankingsApi.getCircuitOpenMillis();
+        if (openFor > 0) {
+            return cached != null
+                    ? CompletableFuture.completedFuture(cached)
+                    : CompletableFuture.failedFuture(new FetchRejectedException("Rankings API circuit is open", openFor));
+        }
+
+        CompletableFuture<PlayerTiers> pending = refresh(uuid, playerName);
+        if (!pending.isDone()) {
+            interactiveFetches.add(pending);
+            pending.whenComplete((tiers, error) -> interactiveFetches.remove(pending));
+        }
+        return pending;
+    }
+
+    /**
+     * Fetches the player's tiers, or joins the fetch already in flight for them.
+     */
+    public static CompletableFuture<PlayerTiers> refresh(UUID uuid, String playerName) {
+        PlayerTiers local = fromRoster(uuid);
+        if (local != null) {
+            return CompletableFuture.completedFuture(local);
+        }
+
+        CompletableFuture<PlayerTiers> existing = ongoingFetches.get(uuid);
+        if (existing != null) {
+            return existing;
+        }
+
+        CompletableFuture<PlayerTiers> pending = new CompletableFuture<>();
+        existing = ongoingFetches.putIfAbsent(uuid, pending);
+        if (existing != null) {
+            return existing;
+        }
+
+        TierRetryScheduler.cancel(uuid);
+        attemptFetch(uuid, playerName, 0, pending);
+        return pending;
+    }
+
+    /**
+     * Caches tiers that did not come from a lookup. No refresh is scheduled for them.
+     */
+    public static void put(UUID uuid, PlayerTiers tiers) {
+        replace(uuid, tiers);
+    }
+
+    public static TierRoster getRoster() {
+        return roster;
+    }
+
+    /**
+     * Switches lookups over to a new roster, or back to fetching players one by one if null.
+     */
+    public static void setRoster(TierRoster next) {
+        roster = next;
+        version.incrementAndGet();
+    }
+
+    /**
+     * Called after changes were applied to the roster in use, so tagged names built from the old
+     * tiers are rebuilt. A sync that found no changes does not call this.
+     */
+    public static void onRosterChanged() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Marks the player as one whose tiers are on screen, so they are kept fresh in the background
+     * until {@link #evict} or until the cache drops them. Players only looked up by a command are
+     * not tracked and just expire, and neither are the fake entries servers fill tab lists with.
+     */
+    public static void track(UUID uuid) {
+        // Real accounts have version 4 UUIDs; NPCs and tab list filler never have tiers.
+        if (uuid.version() == 4) {
+            trackedPlayers.add(uuid);
+        }
+    }
+
+    public static int getCachedPlayerCount() {
+        return allPlayerTiers.size();
+    }
+
+    /**
+     * Forgets a player who left: their cached tiers, pending retry or refresh, and lookup. A request
+     * still waiting in the fetch queue is never sent; one already on the wire completes, but its
+     * result is discarded. If they come back, the disk cache usually has them.
+     */
+    public static void evict(UUID uuid) {
+        trackedPlayers.remove(uuid);
+        // No version bump: their entity, and the tagged name on it, goes away too.
+        allPlayerTiers.remove(uuid);
+        TierRetryScheduler.cancel(uuid);
+        CompletableFuture<PlayerTiers> pending = ongoingFetches.remove(uuid);
+        if (pending != null) {
+            pending.cancel(false);
+        }
+    }
+
+    public static void clear() {
+        trackedPlayers.clear();
+        allPlayerTiers.clear();
+        version.incrementAndGet();
+        ongoingFetches.values().forEach(pending -> pending.cancel(false));
+        ongoingFetches.clear();
+    }
+
+    private static void attemptFetch(UUID uuid, String playerName, int attempt, CompletableFuture<PlayerTiers> pending) {
+        CompletableFuture<RankingsApi.Response> request = TierFetchExecutor.submit(uuid, () -> RankingsApi.fetch(uuid));
+        request.whenComplete((response, error) -> onFetchComplete(uuid, playerName, attempt, pending, response, error));
+        pending.whenComplete((tiers, error) -> {
+            if (pending.isCancelled()) {
+                request.cancel(false);
+            }
+        });
+    }
+
+    private static void onFetchComplete(UUID uuid, String playerName, int attempt, CompletableFuture<PlayerTiers> pending,
+                                        RankingsApi.Response response, Throwable error) {
+        Throwable cause = error == null ? null : TierFetchExecutor.unwrap(error);
+
+        if (pending.isDone()) {
+            // Cancelled while the request was out; the player left or we disconnected.
+            return;
+        } else if (cause instanceof CancellationException) {
+            // The executor was shut down on disconnect and the caches are already gone.
+            finish(uuid, pending, null, cause);
+            return;
+        } else if (cause instanceof FetchRejectedException e) {
+            if (interactiveFetches.contains(pending)) {
+                // Someone is waiting on this lookup; tell them now rather than once the circuit has closed.
+                PlayerTiers previous = allPlayerTiers.get(uuid);
+                // Picked up again once the circuit closes, like any other tracked player.
+                scheduleRefresh(uuid, playerName, previous == null ? System.currentTimeMillis() : previous.getFetchedAt());
+                finish(uuid, pending, previous, previous == null ? e : null);
+                return;
+            }
+            // Never reached the server, so it does not use up an attempt; the queue holds it until the circuit lets it through.
+            attemptFetch(uuid, playerName, attempt, pending);
+            return;
+        } else if (cause instanceof HttpTimeoutException) {
+            SubtiersTagger.LOGGER.warn("Timeout while fetching tier for player: {}", playerName);
+        } else if (cause != null) {
+            SubtiersTagger.LOGGER.error("Failed to fetch tier for player {}", playerName, cause);
+        } else if (response.statusCode() == 404 || response.statusCode() == 422) {
+            SubtiersTagger.LOGGER.warn("No valid tier data found for player: {}", playerName);
+            TierMetrics.FETCHES_SUCCEEDED.increment();
+            finish(uuid, pending, storeTiers(uuid, playerName, PlayerTiers.none(System.currentTimeMillis()), true), null);
+            return;
+        } else if (response.statusCode() == 200) {
+            SubtiersTagger.LOGGER.info("Fetched tiers for player {}, best: {}", playerName, response.tiers().getBestTier().getLabel());
+            TierMetrics.FETCHES_SUCCEEDED.increment();
+            finish(uuid, pending, storeTiers(uuid, playerName, response.tiers(), true), null);
+            return;
+        } else if (response.statusCode() == 429) {
+            SubtiersTagger.LOGGER.warn("Rate limited while fetching tier for player: {}", playerName);
+        } else {
+            SubtiersTagger.LOGGER.error("Unexpected response code {} while fetching tier for player: {}", response.statusCode(), playerName);
+        }
+
+        int nextAttempt = attempt + 1;
+        if (nextAttempt < MAX_FETCH_ATTEMPTS) {
+            TierMetrics.FETCHES_RETRIED.increment();
+            TierRetryScheduler.schedule(uuid, nextAttempt, () -> attemptFetch(uuid, playerName, nextAttempt, pending));
+            return;
+        }
+
+        SubtiersTagger.LOGGER.error("Failed to fetch tier for player {} after {} attempts.", playerName, nextAttempt);
+        TierMetrics.FETCHES_FAILED.increment();
+        PlayerTiers previous = allPlayerTiers.get(uuid);
+        if (previous == null) {
+            storeTiers(uuid, playerName, PlayerTiers.none(System.currentTimeMillis()), false);
+        } else {
+            // Keep serving the old result until it is too stale, and try again on the next refresh.
+            scheduleRefresh(uuid, playerName, System.currentTimeMillis());
+        }
+
+        if (cause == null) {
+            cause = new IOException(response == null ? "Rankings API unavailable" : "Unexpected response code " + response.statusCode());
+        }
+        finish(uuid, pending, previous, previous == null ? cause : null);
+    }
+
+    private static void onTrimmed(List<UUID> dropped) {
+        // Rendering them again tracks them again; until then they are not worth refreshing.
+        dropped.forEach(trackedPlayers::remove);
+        // The dropped tiers may back tagged names; without the bump their refetch would count as a first insert.
+        version.incrementAndGet();
+    }
+
+    private static PlayerTiers fromRoster(UUID uuid) {
+        TierRoster current = roster;
+        return current == null || current.isTooStale() ? null : current.get(uuid);
+    }
+
+    private static void finish(UUID uuid, CompletableFuture<PlayerTiers> pending, PlayerTiers tiers, Throwable error) {
+        ongoingFetches.remove(uuid, pending);
+        if (error != null) {
+            pending.completeExceptionally(error);
+        } else {
+            pending.complete(tiers);
+        }
+    }
+
+    private static PlayerTiers storeTiers(UUID uuid, String playerName, PlayerTiers tiers, boolean persist) {
+        replace(uuid, tiers);
+        scheduleRefresh(uuid, playerName, tiers.getFetchedAt());
+
+        if (persist) {
+            TierDiskCache.put(uuid, tiers);
+        }
+        return tiers;
+    }
+
+    /**
+     * Caches the tiers, bumping the version only if they change tiers a tagged name may have been
+     * built from. A player's first tiers, and a refresh that found the same tiers, leave every
+     * existing tagged name valid; it keeps the older fetch time, which only decides when it is too stale.
+     */
+    private static void replace(UUID uuid, PlayerTiers tiers) {
+        PlayerTiers previous = allPlayerTiers.put(uuid, tiers);
+        if (previous != null && !previous.hasSameTiers(tiers)) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Refreshes a tracked player once their tiers expire. The jitter spreads players fetched in the
+     * same burst, e.g. on joining a lobby, over a minute instead of refetching them all at once.
+     */
+    private static void scheduleRefresh(UUID uuid, String playerName, long fetchedAt) {
+        if (!trackedPlayers.contains(uuid)) {
+            return;
+        }
+
+        long delay = Math.max(0, fetchedAt + PlayerTiers.EXPIRATION_TIME - System.currentTimeMillis())
+                + ThreadLocalRandom.current().nextLong(REFRESH_SPREAD_MS);
+        TierRetryScheduler.scheduleAfter(uuid, delay, () -> {
+            // Players evicted from the cache or no longer tracked since are not worth a request.
+            if (allPlayerTiers.containsKey(uuid) && trackedPlayers.contains(uuid)) {
+                refresh(uuid, playerName);
+            }
+        });
+    }
+
+    /**
+     * Fills the in-memory cache from the disk cache, so players seen in an earlier session or
+     * before a reconnect are tagged without a request.
+     */
+    private static PlayerTiers restoreFromDisk(UUID uuid) {
+        PlayerTiers stored = TierDiskCache.get(uuid);
+        if (stored == null || stored.isTooStale()) {
+            return null;
+        }
+
+        // A first insert; no tagged name can have been built from it yet, so no version bump.
+        PlayerTiers current = allPlayerTiers.putIfAbsent(uuid, stored);
+        return current != null ? current : stored;
+    }
+}
@@ -0,0 +1,280 @@
+package net.catcart.tier;
+
+import net.catcart.config.GameMode;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Index of every ranked player's tiers, downloaded in bulk by {@link net.catcart.fetch.RosterSync}.
+ * Players are kept in an open-addressing table of raw UUID halves and one tier code per
+ * {@link GameMode}, so a million players take a few dozen megabytes instead of a map entry, a
+ * {@link UUID} and a {@link PlayerTiers} each. Players missing from the roster are unranked.
+ * <p>
+ * Changes are applied in place, so a sync costs what changed rather than a copy of the table.
+ * Only one thread may change a roster at a time. Readers never block: they read optimistically
+ * and only retry under the read lock if a change landed meanwhile.
+ */
+public final class TierRoster {
+    private static final int MODES = GameMode.values().length;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final String source;
+    private final StampedLock lock = new StampedLock();
+    // Replaced as a whole when the table grows, so a reader always sees matching arrays.
+    private Table table;
+    private int size;
+    private volatile long version;
+    private volatile long syncedAt;
+
+    /**
+     * Most and least significant bits of each slot's UUID, both zero for an empty slot, and the
+     * slot's tier codes.
+     */
+    private record Table(long[] keys, byte[] codes) {
+        int capacity() {
+            return keys.length / 2;
+        }
+
+        boolean isEmpty(int slot) {
+            return keys[slot * 2] == 0 && keys[slot * 2 + 1] == 0;
+        }
+    }
+
+    /**
+     * @param source the URL the roster is downloaded from
+     * @param expectedPlayers how many ranked players to size the table for; it grows past that as needed
+     */
+    public TierRoster(String source, int expectedPlayers) {
+        this.source = source;
+        this.table = newTable(capacityFor(expectedPlayers));
+    }
+
+    /**
+     * @return the player's tiers as of the last sync; unranked if they are not in the roster
+     */
+    public PlayerTiers get(UUID uuid) {
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        byte[] tiers = new byte[MODES];
+
+        long stamp = lock.tryOptimisticRead();
+        boolean found = read(table, most, least, tiers);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = read(table, most, least, tiers);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return found ? PlayerTiers.of(tiers, syncedAt) : PlayerTiers.none(syncedAt);
+    }
+
+    private static boolean read(Table table, long most, long least, byte[] tiers) {
+        int slot = find(table, most, least);
+        if (slot < 0 || table.isEmpty(slot)) {
+            return false;
+        }
+        System.arraycopy(table.codes(), slot * MODES, tiers, 0, MODES);
+        return true;
+    }
+
+    /**
+     * Sets the player's tiers, replacing any they had. All-zero codes remove the player.
+     *
+     * @param tierCodes tier codes indexed by {@link GameMode} ordinal
+     */
+    public void put(UUID uuid, byte[] tierCodes) {
+        long stamp = lock.writeLock();
+        try {
+            putLocked(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), tierCodes);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(UUID uuid) {
+        put(uuid, new byte[MODES]);
+    }
+
+    /**
+     * Applies a batch of changes at once, so readers see either none or all of them, and moves
+     * the roster to the version they bring it to.
+     *
+     * @param changes new tier codes by player; null or all-zero codes remove the player
+     */
+    public void apply(Map<UUID, byte[]> changes, long newVersion, long time) {
+        long stamp = lock.writeLock();
+        try {
+            byte[] unranked = new byte[MODES];
+            changes.forEach((uuid, tiers) -> putLocked(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), tiers == null ? unranked : tiers));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        markSynced(newVersion, time);
+    }
+
+    /**
+     * Records a sync that brought the roster up to the given version.
+     */
+    public void markSynced(long newVersion, long time) {
+        version = newVersion;
+        syncedAt = time;
+    }
+
+    /**
+     * @return the URL this roster was downloaded from
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return the server's version of the roster, sent back to only fetch what changed since
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public long getSyncedAt() {
+        return syncedAt;
+    }
+
+    /**
+     * @return how many ranked players the roster holds
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int capacity() {
+        return table.capacity();
+    }
+
+    /**
+     * Past this, the roster is no longer trusted and lookups go back to fetching players one by one.
+     */
+    public boolean isTooStale() {
+        return System.currentTimeMillis() - syncedAt > PlayerTiers.MAX_STALE_TIME;
+    }
+
+    private void putLocked(long most, long least, byte[] tierCodes) {
+        if (most == 0 && least == 0) {
+            return;
+        }
+
+        int slot = find(table, most, least);
+        boolean present = slot >= 0 && !table.isEmpty(slot);
+        if (isUnranked(tierCodes)) {
+            // Absent already means unranked; no need to spend a slot on it.
+            if (present) {
+                delete(table, slot);
+                size--;
+            }
+            return;
+        }
+
+        if (!present) {
+            if ((size + 1) * 2 > table.capacity()) {
+                table = grow(table);
+                slot = find(table, most, least);
+            }
+            table.keys()[slot * 2] = most;
+            table.keys()[slot * 2 + 1] = least;
+            size++;
+        }
+        System.arraycopy(tierCodes, 0, table.codes(), slot * MODES, MODES);
+    }
+
+    /**
+     * @return the slot holding the UUID, or the empty slot where it would go, or -1 if the table is full
+     */
+    private static int find(Table table, long most, long least) {
+        long[] keys = table.keys();
+        int capacity = table.capacity();
+        int mask = capacity - 1;
+        int slot = home(most, least, mask);
+        for (int probes = 0; probes < capacity; probes++) {
+            long slotMost = keys[slot * 2];
+            long slotLeast = keys[slot * 2 + 1];
+            if (slotMost == most && slotLeast == least || slotMost == 0 && slotLeast == 0) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Empties the slot and shifts later entries of the same probe run back into the gap, so every
+     * entry stays reachable from its home slot without leaving tombstones behind.
+     */
+    private static void delete(Table table, int slot) {
+        long[] keys = table.keys();
+        byte[] codes = table.codes();
+        int mask = table.capacity() - 1;
+
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (!table.isEmpty(next)) {
+            int home = home(keys[next * 2], keys[next * 2 + 1], mask);
+            // The entry may fill the hole only if the hole lies between its home slot and where it sits now.
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole * 2] = keys[next * 2];
+                keys[hole * 2 + 1] = keys[next * 2 + 1];
+                System.arraycopy(codes, next * MODES, codes, hole * MODES, MODES);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        keys[hole * 2] = 0;
+        keys[hole * 2 + 1] = 0;
+    }
+
+    private static Table grow(Table old) {
+        Table grown = newTable(old.capacity() * 2);
+        for (int slot = 0; slot < old.capacity(); slot++) {
+            if (old.isEmpty(slot)) {
+                continue;
+            }
+            long most = old.keys()[slot * 2];
+            long least = old.keys()[slot * 2 + 1];
+            int target = find(grown, most, least);
+            grown.keys()[target * 2] = most;
+            grown.keys()[target * 2 + 1] = least;
+            System.arraycopy(old.codes(), slot * MODES, grown.codes(), target * MODES, MODES);
+        }
+        return grown;
+    }
+
+    private static Table newTable(int capacity) {
+        return new Table(new long[capacity * 2], new byte[capacity * MODES]);
+    }
+
+    private static int home(long most, long least, int mask) {
+        long h = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int players) {
+        // Kept at most half full so probe runs stay short.
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, players) * 2 - 1) * 2);
+    }
+
+    private static boolean isUnranked(byte[] tierCodes) {
+        for (int i = 0; i < MODES; i++) {
+            if (tierCodes[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
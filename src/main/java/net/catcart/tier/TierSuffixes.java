@@ -0,0 +1,47 @@
+package net.catcart.tier;
+
+import net.catcart.config.GameMode;
+import net.catcart.config.SubtierConfig;
+import net.minecraft.text.Text;
+import net.minecraft.text.TextColor;
+
+/**
+ * Prebuilt {@code " | <tier><icon>"} fragments, one per tier and game mode, shared as a sibling
+ * by every tagged name. The table is rebuilt only when the config snapshot changes, which
+ * covers tier colors. The fragments must never be mutated after they are handed out.
+ */
+public final class TierSuffixes {
+    private static final int MODES = GameMode.values().length;
+
+    private static volatile Table table;
+
+    private record Table(int generation, Text[] fragments) {
+    }
+
+    private TierSuffixes() {
+    }
+
+    public static Text get(SubtierConfig.Snapshot config, Tier tier, GameMode mode) {
+        Table current = table;
+        if (current == null || current.generation() != config.generation()) {
+            current = build(config);
+            table = current;
+        }
+        return current.fragments()[tier.ordinal() * MODES + mode.ordinal()];
+    }
+
+    private static Table build(SubtierConfig.Snapshot config) {
+        Text[] fragments = new Text[Tier.values().length * MODES];
+        for (Tier tier : Tier.values()) {
+            TextColor color = TextColor.fromRgb(config.getColor(tier));
+            Text formattedTier = Text.literal(tier.getLabel()).styled(style -> style.withColor(color));
+
+            for (GameMode mode : GameMode.values()) {
+                fragments[tier.ordinal() * MODES + mode.ordinal()] = Text.literal(" | ")
+                        .append(formattedTier)
+                        .append(mode.getIconText());
+            }
+        }
+        return new Table(config.generation(), fragments);
+    }
+}
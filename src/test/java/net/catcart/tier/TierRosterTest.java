@@ -0,0 +1,177 @@
+package net.catcart.tier;
+
+import net.catcart.config.GameMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TierRosterTest {
+    private static final int MODES = GameMode.values().length;
+
+    @Test
+    void putThenGet() {
+        TierRoster roster = new TierRoster("test", 10);
+        UUID uuid = UUID.randomUUID();
+        roster.put(uuid, codes(3));
+
+        assertRanked(roster, uuid, codes(3));
+        assertUnranked(roster, UUID.randomUUID());
+        assertEquals(1, roster.size());
+    }
+
+    @Test
+    void putReplacesTiers() {
+        TierRoster roster = new TierRoster("test", 10);
+        UUID uuid = UUID.randomUUID();
+        roster.put(uuid, codes(3));
+        roster.put(uuid, codes(5));
+
+        assertRanked(roster, uuid, codes(5));
+        assertEquals(1, roster.size());
+    }
+
+    @Test
+    void unrankedPlayersTakeNoSlot() {
+        TierRoster roster = new TierRoster("test", 10);
+        roster.put(UUID.randomUUID(), new byte[MODES]);
+
+        assertEquals(0, roster.size());
+    }
+
+    @Test
+    void removeFreesTheSlot() {
+        TierRoster roster = new TierRoster("test", 10);
+        UUID uuid = UUID.randomUUID();
+        roster.put(uuid, codes(3));
+        roster.remove(uuid);
+
+        assertUnranked(roster, uuid);
+        assertEquals(0, roster.size());
+
+        roster.put(uuid, codes(4));
+        assertRanked(roster, uuid, codes(4));
+        assertEquals(1, roster.size());
+    }
+
+    @Test
+    void removingAnAbsentPlayerChangesNothing() {
+        TierRoster roster = new TierRoster("test", 10);
+        UUID uuid = UUID.randomUUID();
+        roster.put(uuid, codes(3));
+        roster.remove(UUID.randomUUID());
+
+        assertRanked(roster, uuid, codes(3));
+        assertEquals(1, roster.size());
+    }
+
+    @Test
+    void zeroUuidIsIgnored() {
+        TierRoster roster = new TierRoster("test", 10);
+        UUID zero = new UUID(0, 0);
+        roster.put(zero, codes(3));
+
+        assertUnranked(roster, zero);
+        assertEquals(0, roster.size());
+    }
+
+    @Test
+    void growsPastTheExpectedSize() {
+        TierRoster roster = new TierRoster("test", 10);
+        int initialCapacity = roster.capacity();
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < initialCapacity * 2; i++) {
+            UUID uuid = UUID.randomUUID();
+            players.add(uuid);
+            roster.put(uuid, codes(i % 5 + 1));
+        }
+
+        assertTrue(roster.capacity() > initialCapacity);
+        assertTrue(roster.size() * 2 <= roster.capacity());
+        assertEquals(players.size(), roster.size());
+        for (int i = 0; i < players.size(); i++) {
+            assertRanked(roster, players.get(i), codes(i % 5 + 1));
+        }
+    }
+
+    @Test
+    void collidingPlayersStayReachableAfterRemovals() {
+        // Enough churn on a small key range to fill probe runs, some wrapping around the end of the
+        // table, and delete from the middle of them, checked against a plain map.
+        TierRoster roster = new TierRoster("test", 10);
+        Map<UUID, byte[]> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            UUID uuid = new UUID(random.nextInt(700), random.nextInt(3) + 1);
+            if (random.nextInt(3) == 0) {
+                roster.remove(uuid);
+                expected.remove(uuid);
+            } else {
+                byte[] tiers = codes(random.nextInt(5) + 1);
+                roster.put(uuid, tiers);
+                expected.put(uuid, tiers);
+            }
+        }
+
+        assertEquals(expected.size(), roster.size());
+        for (int most = 0; most < 700; most++) {
+            for (int least = 1; least <= 3; least++) {
+                UUID uuid = new UUID(most, least);
+                byte[] tiers = expected.get(uuid);
+                if (tiers == null) {
+                    assertUnranked(roster, uuid);
+                } else {
+                    assertRanked(roster, uuid, tiers);
+                }
+            }
+        }
+    }
+
+    @Test
+    void applyPutsAndRemovesInOneBatch() {
+        TierRoster roster = new TierRoster("test", 10);
+        UUID kept = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+        UUID added = UUID.randomUUID();
+        roster.put(kept, codes(1));
+        roster.put(removed, codes(2));
+        roster.markSynced(1, 1000);
+
+        Map<UUID, byte[]> changes = new LinkedHashMap<>();
+        changes.put(removed, null);
+        changes.put(added, codes(3));
+        roster.apply(changes, 2, 2000);
+
+        assertRanked(roster, kept, codes(1));
+        assertUnranked(roster, removed);
+        assertRanked(roster, added, codes(3));
+        assertEquals(2, roster.size());
+        assertEquals(2, roster.getVersion());
+        assertEquals(2000, roster.getSyncedAt());
+    }
+
+    private static byte[] codes(int code) {
+        byte[] codes = new byte[MODES];
+        for (int i = 0; i < MODES; i += 2) {
+            codes[i] = (byte) code;
+        }
+        return codes;
+    }
+
+    private static void assertRanked(TierRoster roster, UUID uuid, byte[] codes) {
+        assertArrayEquals(codes, roster.get(uuid).toCodes());
+    }
+
+    private static void assertUnranked(TierRoster roster, UUID uuid) {
+        assertArrayEquals(new byte[MODES], roster.get(uuid).toCodes());
+    }
+}